@@ -0,0 +1,55 @@
+package com.developer.benchmark;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load test tools, given as {@code --name value} pairs
+ */
+final class Arguments {
+    private final Map<String, String> values;
+
+    private Arguments(final Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * @param args The command line arguments
+     * @return The parsed options
+     * @throws IllegalArgumentException when an option has no value or an argument is not an option
+     */
+    static Arguments parse(final String[] args) {
+        final Map<String, String> values = new HashMap<>();
+        for (int index = 0; index < args.length; index += 2) {
+            if (!args[index].startsWith("--") || index + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value options, got " + args[index]);
+            }
+            values.put(args[index].substring(2), args[index + 1]);
+        }
+        return new Arguments(values);
+    }
+
+    String get(final String name, final String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(final String name, final int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    long getLong(final String name, final long defaultValue) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    /**
+     * Reads a duration written like 30s, 5m or an ISO-8601 duration
+     */
+    Duration getDuration(final String name, final Duration defaultValue) {
+        if (!values.containsKey(name)) {
+            return defaultValue;
+        }
+        final String value = values.get(name);
+        return value.toUpperCase().startsWith("P") ? Duration.parse(value) : Duration.parse("PT" + value.toUpperCase());
+    }
+}
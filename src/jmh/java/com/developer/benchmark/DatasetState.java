@@ -0,0 +1,55 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.Record;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.service.ParallelQueryExecutor;
+import com.developer.service.RecordProcessingService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * Synthetic records shared by the benchmarks of a trial, both as the list of records and as their dataset
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+    static final long SEED = 42;
+    static final int PAGE_SIZE = 20;
+    static final String NAME_FILTER = "gal";
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int size;
+
+    List<Record> records;
+
+    RecordDataset dataset;
+
+    final RecordProcessingService recordProcessingService = new RecordProcessingService();
+
+    final ParallelQueryExecutor parallelQueryExecutor = new ParallelQueryExecutor();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ReflectionTestUtils.setField(recordProcessingService, "parallelQueryExecutor", parallelQueryExecutor);
+        records = SyntheticRecords.generate(size, SEED);
+        dataset = RecordDataset.of(records);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelQueryExecutor.stop();
+    }
+
+    /**
+     * @return The number of the last page of the unfiltered records
+     */
+    int lastPage() {
+        return (size + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+}
@@ -0,0 +1,205 @@
+package com.developer.benchmark;
+
+import com.developer.persistence.mapper.DataObjectMapperBuilder;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Offline stand-in for the Google Cloud Storage json API, serving the files of a directory as public objects of any bucket.
+ * It answers the object metadata, object listing and media download requests of the storage client, with a generation
+ * derived from the file modification time, so replacing a file is seen as a new generation by the refresher.
+ * Point the service at it with {@code google.cloud.storage.host=http://localhost:<port>}.
+ * <p>
+ * Options: {@code --port} (default 4443), {@code --directory} the directory of the objects (default target/loadtest).
+ */
+public final class LocalStorageServer {
+    private static final Pattern OBJECT_PATH = Pattern.compile("^(?:/download)?/storage/v1/b/([^/]+)/o/(.+)$");
+    private static final Pattern LIST_PATH = Pattern.compile("^/storage/v1/b/([^/]+)/o/?$");
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+
+    private final Path directory;
+
+    private LocalStorageServer(final Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Arguments arguments = Arguments.parse(args);
+        final int port = arguments.getInt("port", 4443);
+        final Path directory = Path.of(arguments.get("directory", "target/loadtest")).toAbsolutePath().normalize();
+        final LocalStorageServer storage = new LocalStorageServer(directory);
+        final HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", storage::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.printf("Serving the objects of %s on http://localhost:%d%n", directory, port);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final String path = exchange.getRequestURI().getRawPath();
+            final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            final Matcher objectPath = OBJECT_PATH.matcher(path);
+            final Matcher listPath = LIST_PATH.matcher(path);
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET requests are supported");
+            } else if (objectPath.matches()) {
+                final String bucket = decodePath(objectPath.group(1));
+                final Path file = resolve(decodePath(objectPath.group(2)));
+                if (file == null || !Files.isRegularFile(file)) {
+                    sendError(exchange, 404, "No such object: " + bucket + "/" + decodePath(objectPath.group(2)));
+                } else if (query.containsKey("generation") && Long.parseLong(query.get("generation")) != generation(file)) {
+                    sendError(exchange, 404, "No such object generation: " + bucket + "/" + decodePath(objectPath.group(2)) + "#" + query.get("generation"));
+                } else if ("media".equals(query.get("alt"))) {
+                    sendMedia(exchange, file);
+                } else {
+                    sendJson(exchange, metadata(bucket, file));
+                }
+            } else if (listPath.matches()) {
+                sendJson(exchange, list(decodePath(listPath.group(1)), query.getOrDefault("prefix", "")));
+            } else {
+                sendError(exchange, 404, "Unsupported path " + path);
+            }
+        }
+    }
+
+    private ObjectNode metadata(final String bucket, final Path file) throws IOException {
+        final String name = directory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        return DataObjectMapperBuilder.getInstance().createObjectNode()
+                .put("kind", "storage#object")
+                .put("id", bucket + "/" + name + "/" + generation(file))
+                .put("bucket", bucket)
+                .put("name", name)
+                .put("generation", Long.toString(generation(file)))
+                .put("metageneration", "1")
+                .put("contentType", "application/json")
+                .put("size", Long.toString(Files.size(file)))
+                .put("updated", Files.getLastModifiedTime(file).toInstant().toString());
+    }
+
+    private ObjectNode list(final String bucket, final String prefix) throws IOException {
+        final ObjectNode response = DataObjectMapperBuilder.getInstance().createObjectNode().put("kind", "storage#objects");
+        final ArrayNode items = response.putArray("items");
+        final List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path file : files) {
+            final ObjectNode metadata = metadata(bucket, file);
+            if (metadata.get("name").asText().startsWith(prefix)) {
+                items.add(metadata);
+            }
+        }
+        return response;
+    }
+
+    private void sendMedia(final HttpExchange exchange, final Path file) throws IOException {
+        final long size = Files.size(file);
+        long start = 0;
+        long end = size - 1;
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final Matcher rangeMatcher = range == null ? null : RANGE.matcher(range);
+        if (rangeMatcher != null && rangeMatcher.matches()) {
+            start = Long.parseLong(rangeMatcher.group(1));
+            end = rangeMatcher.group(2).isEmpty() ? end : Math.min(end, Long.parseLong(rangeMatcher.group(2)));
+            if (start >= size) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + size);
+                sendError(exchange, 416, "Requested range not satisfiable");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("x-goog-generation", Long.toString(generation(file)));
+        exchange.getResponseHeaders().set("x-goog-metageneration", "1");
+        exchange.getResponseHeaders().set("x-goog-stored-content-length", Long.toString(size));
+        final long length = end - start + 1;
+        exchange.sendResponseHeaders(rangeMatcher != null && rangeMatcher.matches() ? 206 : 200, length == 0 ? -1 : length);
+        try (InputStream input = Files.newInputStream(file); OutputStream output = exchange.getResponseBody()) {
+            input.skipNBytes(start);
+            final byte[] buffer = new byte[1 << 16];
+            long remaining = length;
+            while (remaining > 0) {
+                final int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                output.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static void sendJson(final HttpExchange exchange, final ObjectNode json) throws IOException {
+        final byte[] body = DataObjectMapperBuilder.getInstance().writeValueAsBytes(json);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+        final ObjectNode error = DataObjectMapperBuilder.getInstance().createObjectNode();
+        error.putObject("error").put("code", status).put("message", message);
+        final byte[] body = DataObjectMapperBuilder.getInstance().writeValueAsBytes(error);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * @return The file of an object name, or null when the name escapes the served directory
+     */
+    private Path resolve(final String name) {
+        final Path file = directory.resolve(name).normalize();
+        return file.startsWith(directory) ? file : null;
+    }
+
+    /**
+     * @return The generation of a file, its modification time in microseconds like the generations of Google Cloud Storage
+     */
+    private static long generation(final Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() * 1000;
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) {
+        final Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                final int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    query.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static String decode(final String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a path segment, where a plus sign is not an encoded space
+     */
+    private static String decodePath(final String value) {
+        return decode(value.replace("+", "%2B"));
+    }
+}
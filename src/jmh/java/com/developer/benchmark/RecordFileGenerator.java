@@ -0,0 +1,69 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.mapper.DataObjectMapperBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Writes a storage object of synthetic records, shaped like PersistenceData: {@code {"output": [...]}}.
+ * Records are written while they are generated, so the file size is only bounded by the disk.
+ * <p>
+ * Options: {@code --records} number of records (default 1000000), {@code --output} file (default target/loadtest/data.json),
+ * {@code --seed} (default 42), {@code --statuses} status weights like {@code COMPLETED=80,CANCELED=11,ERROR=9}
+ * (default: the sample frequencies), {@code --names} number of distinct names (default: every sample combination).
+ */
+public final class RecordFileGenerator {
+
+    private RecordFileGenerator() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final Arguments arguments = Arguments.parse(args);
+        final long size = arguments.getLong("records", 1_000_000);
+        final Path file = Path.of(arguments.get("output", "target/loadtest/data.json"));
+        final SyntheticRecords generator = SyntheticRecords.withSeed(arguments.getLong("seed", DatasetState.SEED))
+                .nameCardinality(arguments.getInt("names", 0));
+        if (arguments.get("statuses", null) != null) {
+            generator.statusWeights(parseStatusWeights(arguments.get("statuses", null)));
+        }
+
+        final long startTime = System.nanoTime();
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+             JsonGenerator json = DataObjectMapperBuilder.getInstance().createGenerator(output)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("output");
+            generator.generate(size, record -> {
+                try {
+                    SyntheticRecords.write(json, record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        System.out.printf("Wrote %d records, %d bytes, to %s in %d ms%n",
+                size, Files.size(file), file, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private static Map<StatusEnum, Integer> parseStatusWeights(final String value) {
+        final Map<StatusEnum, Integer> weights = new EnumMap<>(StatusEnum.class);
+        for (String weight : value.split(",")) {
+            final String[] parts = weight.split("=");
+            weights.put(StatusEnum.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,46 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters by name and by status, on the list of records and on the dataset indexes
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordFilterBenchmark {
+
+    @Benchmark
+    public List<Record> filterByName(final DatasetState state) {
+        return state.recordProcessingService.filterByName(state.records, DatasetState.NAME_FILTER);
+    }
+
+    @Benchmark
+    public List<Record> filterByStatus(final DatasetState state) {
+        return state.recordProcessingService.filterByStatus(state.records, StatusEnum.ERROR);
+    }
+
+    @Benchmark
+    public BitSet nameFilter(final DatasetState state) {
+        return state.recordProcessingService.nameFilter(state.dataset, DatasetState.NAME_FILTER);
+    }
+
+    @Benchmark
+    public BitSet statusFilter(final DatasetState state) {
+        return state.recordProcessingService.statusFilter(state.dataset, List.of(StatusEnum.ERROR, StatusEnum.CANCELED));
+    }
+}
@@ -0,0 +1,71 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.Record;
+import com.developer.persistence.entity.PersistenceData;
+import com.developer.persistence.mapper.DataObjectMapperBuilder;
+import com.developer.persistence.mapper.RecordStreamReader;
+import com.developer.persistence.store.RecordDataset;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the storage object json of the synthetic records, written like the storage object with epoch millisecond dates.
+ * It compares binding the whole document through {@link DataObjectMapperBuilder} with streaming the records into a dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int size;
+
+    byte[] content;
+
+    @Setup(Level.Trial)
+    public void writeContent() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = DataObjectMapperBuilder.getInstance().createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("output");
+            for (Record record : SyntheticRecords.generate(size, DatasetState.SEED)) {
+                SyntheticRecords.write(generator, record);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        content = output.toByteArray();
+    }
+
+    @Benchmark
+    public List<Record> readPersistenceData() throws IOException {
+        return DataObjectMapperBuilder.getInstance().readValue(content, PersistenceData.class).getOutput();
+    }
+
+    @Benchmark
+    public RecordDataset streamDataset() throws IOException {
+        final RecordDataset.Builder builder = RecordDataset.builder();
+        RecordStreamReader.read(new ByteArrayInputStream(content), builder::add);
+        return builder.build();
+    }
+}
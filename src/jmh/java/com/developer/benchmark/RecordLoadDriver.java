@@ -0,0 +1,223 @@
+package com.developer.benchmark;
+
+import com.developer.persistence.mapper.DataObjectMapperBuilder;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Replays a weighted mix of queries against {@code /api/records} with a fixed number of concurrent clients,
+ * each sending its next request as soon as the previous one completes, and reports the throughput and latency
+ * percentiles of every query and of the whole mix. Latencies of the warmup are not recorded.
+ * <p>
+ * Options: {@code --url} (default http://localhost:8080/api/records), {@code --concurrency} (default 16),
+ * {@code --warmup} (default 10s), {@code --duration} measured time (default 60s), {@code --mix} file of
+ * {@code <weight> <query string>} lines (default: a built-in dashboard-like mix), {@code --gzip} true to accept gzip
+ * responses (default false), {@code --output} file of the json report.
+ */
+public final class RecordLoadDriver {
+    private static final List<Query> DEFAULT_MIX = List.of(
+            new Query(30, ""),
+            new Query(20, "status=ERROR"),
+            new Query(15, "name=gal&sortBy=name&sortOrder=desc"),
+            new Query(10, "status=COMPLETED&status=CANCELED&sortBy=createdOn&sortOrder=desc&page=3"),
+            new Query(10, "page=50&pageSize=100&sortBy=createdOn"),
+            new Query(10, "name=an&status=COMPLETED&sortBy=id&sortOrder=desc&pageSize=50"),
+            new Query(5, "name=e&page=200"));
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private RecordLoadDriver() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Arguments arguments = Arguments.parse(args);
+        final String url = arguments.get("url", "http://localhost:8080/api/records");
+        final int concurrency = arguments.getInt("concurrency", 16);
+        final Duration warmup = arguments.getDuration("warmup", Duration.ofSeconds(10));
+        final Duration duration = arguments.getDuration("duration", Duration.ofSeconds(60));
+        final boolean isGzipAccepted = Boolean.parseBoolean(arguments.get("gzip", "false"));
+        final List<Query> mix = arguments.get("mix", null) == null ? DEFAULT_MIX : readMix(Path.of(arguments.get("mix", null)));
+
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        final int totalWeight = mix.stream().mapToInt(Query::weight).sum();
+        final long measureStart = System.nanoTime() + warmup.toNanos();
+        final long measureEnd = measureStart + duration.toNanos();
+        final List<Recorder> recorders = new ArrayList<>();
+        final AtomicLongArray errors = new AtomicLongArray(mix.size());
+
+        System.out.printf("Replaying %d queries against %s with %d clients, %s warmup then %s measured%n",
+                mix.size(), url, concurrency, warmup, duration);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                final Recorder recorder = new Recorder(mix.size());
+                recorders.add(recorder);
+                clients.submit(() -> {
+                    while (System.nanoTime() < measureEnd) {
+                        final int query = pickQuery(mix, totalWeight);
+                        final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + "?" + mix.get(query).query()))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET();
+                        if (isGzipAccepted) {
+                            request.header("Accept-Encoding", "gzip");
+                        }
+                        final long startTime = System.nanoTime();
+                        boolean isError;
+                        try {
+                            final HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                            isError = response.statusCode() >= 400;
+                        } catch (IOException e) {
+                            isError = true;
+                        }
+                        final long endTime = System.nanoTime();
+                        if (startTime >= measureStart && endTime <= measureEnd) {
+                            if (isError) {
+                                errors.incrementAndGet(query);
+                            } else {
+                                recorder.record(query, endTime - startTime);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        final ObjectNode report = DataObjectMapperBuilder.getInstance().createObjectNode()
+                .put("url", url)
+                .put("concurrency", concurrency)
+                .put("durationSeconds", duration.toMillis() / 1000.0);
+        final ArrayNode queries = report.putArray("queries");
+        System.out.printf("%-80s %9s %7s %10s %9s %9s %9s %9s %9s%n", "query", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        long[] allLatencies = new long[0];
+        long allErrors = 0;
+        for (int query = 0; query < mix.size(); query++) {
+            final long[] latencies = Recorder.merge(recorders, query);
+            allLatencies = concat(allLatencies, latencies);
+            allErrors += errors.get(query);
+            queries.add(summarize(mix.get(query).query(), latencies, errors.get(query), duration));
+        }
+        report.set("total", summarize("total", allLatencies, allErrors, duration));
+        for (ObjectNode summary : toList(queries, (ObjectNode) report.get("total"))) {
+            final ObjectNode percentiles = (ObjectNode) summary.get("latencyMillis");
+            System.out.printf("%-80s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    summary.get("query").asText().isEmpty() ? "(no parameters)" : summary.get("query").asText(),
+                    summary.get("requests").asLong(), summary.get("errors").asLong(), summary.get("throughput").asDouble(),
+                    percentiles.get("p50").asDouble(), percentiles.get("p90").asDouble(), percentiles.get("p99").asDouble(),
+                    percentiles.get("p99.9").asDouble(), percentiles.get("max").asDouble());
+        }
+        if (arguments.get("output", null) != null) {
+            final Path output = Path.of(arguments.get("output", null));
+            DataObjectMapperBuilder.getInstance().writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+            System.out.printf("Report written to %s%n", output);
+        }
+    }
+
+    private static int pickQuery(final List<Query> mix, final int totalWeight) {
+        int weight = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int query = 0; query < mix.size(); query++) {
+            weight -= mix.get(query).weight();
+            if (weight < 0) {
+                return query;
+            }
+        }
+        return mix.size() - 1;
+    }
+
+    private static ObjectNode summarize(final String query, final long[] latencies, final long errors, final Duration duration) {
+        Arrays.sort(latencies);
+        final ObjectNode summary = DataObjectMapperBuilder.getInstance().createObjectNode()
+                .put("query", query)
+                .put("requests", latencies.length)
+                .put("errors", errors)
+                .put("throughput", latencies.length / (duration.toMillis() / 1000.0));
+        final ObjectNode percentiles = summary.putObject("latencyMillis");
+        for (double percentile : PERCENTILES) {
+            final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            percentiles.put("p" + (percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile)),
+                    latencies.length == 0 ? 0 : latencies[Math.max(0, index)] / 1e6);
+        }
+        percentiles.put("max", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        return summary;
+    }
+
+    private static List<Query> readMix(final Path file) throws IOException {
+        final List<Query> mix = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            final String trimmedLine = line.trim();
+            if (trimmedLine.isEmpty() || trimmedLine.startsWith("#")) {
+                continue;
+            }
+            final String[] parts = trimmedLine.split("\\s+", 2);
+            mix.add(new Query(Integer.parseInt(parts[0]), parts.length > 1 ? parts[1] : ""));
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The query mix " + file + " is empty");
+        }
+        return mix;
+    }
+
+    private static long[] concat(final long[] first, final long[] second) {
+        final long[] values = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, values, first.length, second.length);
+        return values;
+    }
+
+    private static List<ObjectNode> toList(final ArrayNode queries, final ObjectNode total) {
+        final List<ObjectNode> summaries = new ArrayList<>();
+        queries.forEach(summary -> summaries.add((ObjectNode) summary));
+        summaries.add(total);
+        return summaries;
+    }
+
+    /**
+     * A query string of the mix and its relative weight
+     */
+    private record Query(int weight, String query) {
+    }
+
+    /**
+     * The latencies measured by one client, in nanoseconds, for every query of the mix
+     */
+    private static final class Recorder {
+        private final long[][] latencies;
+        private final int[] counts;
+
+        Recorder(final int queries) {
+            this.latencies = new long[queries][1024];
+            this.counts = new int[queries];
+        }
+
+        void record(final int query, final long latency) {
+            if (counts[query] == latencies[query].length) {
+                latencies[query] = Arrays.copyOf(latencies[query], latencies[query].length * 2);
+            }
+            latencies[query][counts[query]++] = latency;
+        }
+
+        static long[] merge(final List<Recorder> recorders, final int query) {
+            long[] values = new long[0];
+            for (Recorder recorder : recorders) {
+                values = concat(values, Arrays.copyOf(recorder.latencies[query], recorder.counts[query]));
+            }
+            return values;
+        }
+    }
+}
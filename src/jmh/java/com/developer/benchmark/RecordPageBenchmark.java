@@ -0,0 +1,78 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordSort;
+import com.developer.service.RecordProcessingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paginates at the first and the last page, and composes complete requests the way the controller does:
+ * filter by name and status, sort by name descending, then take the page.
+ * The list benchmarks compose the list methods, the dataset benchmarks compose the index based methods.
+ * The composite sort request orders every record matching the name by status, then by descending creation date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordPageBenchmark {
+    private static final RecordSort COMPOSITE_SORT = RecordSort.of(List.of(FieldEnum.STATUS, FieldEnum.CREATEDON), List.of(OrderEnum.ASC, OrderEnum.DESC));
+
+    @Benchmark
+    public List<Record> getRecordsPageShallow(final DatasetState state) {
+        return state.recordProcessingService.getRecordsPage(state.records, DatasetState.PAGE_SIZE, 1);
+    }
+
+    @Benchmark
+    public List<Record> getRecordsPageDeep(final DatasetState state) {
+        return state.recordProcessingService.getRecordsPage(state.records, DatasetState.PAGE_SIZE, state.lastPage());
+    }
+
+    @Benchmark
+    public int[] getSortedRowsPageShallow(final DatasetState state) {
+        return state.recordProcessingService.getSortedRowsPage(state.dataset, RecordSort.by(FieldEnum.NAME, OrderEnum.DESC), null, DatasetState.PAGE_SIZE, 1);
+    }
+
+    @Benchmark
+    public int[] getSortedRowsPageDeep(final DatasetState state) {
+        return state.recordProcessingService.getSortedRowsPage(state.dataset, RecordSort.by(FieldEnum.NAME, OrderEnum.DESC), null, DatasetState.PAGE_SIZE, state.lastPage());
+    }
+
+    @Benchmark
+    public List<Record> listRequest(final DatasetState state) {
+        final RecordProcessingService service = state.recordProcessingService;
+        final List<Record> records = new ArrayList<>(service.filterByStatus(service.filterByName(state.records, DatasetState.NAME_FILTER), StatusEnum.COMPLETED));
+        service.orderByName(records, OrderEnum.DESC);
+        return service.getRecordsPage(records, DatasetState.PAGE_SIZE, 2);
+    }
+
+    @Benchmark
+    public int[] datasetRequest(final DatasetState state) {
+        final RecordProcessingService service = state.recordProcessingService;
+        final BitSet filter = service.nameFilter(state.dataset, DatasetState.NAME_FILTER);
+        filter.and(service.statusFilter(state.dataset, List.of(StatusEnum.COMPLETED)));
+        return service.getSortedRowsPage(state.dataset, RecordSort.by(FieldEnum.NAME, OrderEnum.DESC), filter, DatasetState.PAGE_SIZE, 2);
+    }
+
+    @Benchmark
+    public int[] datasetCompositeSortRequest(final DatasetState state) {
+        final RecordProcessingService service = state.recordProcessingService;
+        final BitSet filter = service.nameFilter(state.dataset, DatasetState.NAME_FILTER);
+        return service.getSortedRows(state.dataset, COMPOSITE_SORT, filter);
+    }
+}
@@ -0,0 +1,61 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorts the list of records in place by every field in both directions.
+ * Each invocation sorts a fresh copy in load order, the copy is made outside of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordSortBenchmark {
+
+    @Param({"ASC", "DESC"})
+    OrderEnum order;
+
+    List<Record> records;
+
+    @Setup(Level.Invocation)
+    public void copyRecords(final DatasetState state) {
+        records = new ArrayList<>(state.records);
+    }
+
+    @Benchmark
+    public List<Record> orderById(final DatasetState state) {
+        state.recordProcessingService.orderById(records, order);
+        return records;
+    }
+
+    @Benchmark
+    public List<Record> orderByName(final DatasetState state) {
+        state.recordProcessingService.orderByName(records, order);
+        return records;
+    }
+
+    @Benchmark
+    public List<Record> orderByCreatedOn(final DatasetState state) {
+        state.recordProcessingService.orderByCreatedOn(records, order);
+        return records;
+    }
+}
@@ -0,0 +1,211 @@
+package com.developer.benchmark;
+
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.mapper.RecordStreamReader;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Generates synthetic records modelled on the sample records of data/data.json.
+ * Names combine the adjectives and scientist names of the sample, descriptions are sentences of four to eight
+ * words of the sample vocabulary, and statuses, creation dates, deltas and missing values follow the sample frequencies.
+ * The status frequencies and the number of distinct names can be changed. The same settings and seed always generate the same records.
+ */
+public final class SyntheticRecords {
+    private static final String SAMPLE_RESOURCE = "/data/data.json";
+    private static final int DESCRIPTION_POOL_SIZE = 1 << 16;
+    private static final Vocabulary VOCABULARY = readVocabulary();
+
+    private final long seed;
+    private StatusEnum[] statuses = VOCABULARY.statuses();
+    private int nameCardinality;
+
+    private SyntheticRecords(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param seed The seed of the random values
+     * @return A generator following the sample distributions
+     */
+    public static SyntheticRecords withSeed(final long seed) {
+        return new SyntheticRecords(seed);
+    }
+
+    /**
+     * Generates records following the sample distributions
+     *
+     * @param size The number of records
+     * @param seed The seed of the random values
+     * @return The generated records
+     */
+    public static List<Record> generate(final int size, final long seed) {
+        final List<Record> records = new ArrayList<>(size);
+        withSeed(seed).generate(size, records::add);
+        return records;
+    }
+
+    /**
+     * Replaces the sample status frequencies
+     *
+     * @param weights The relative weight of every status, statuses without weight are not generated
+     * @return This generator
+     */
+    public SyntheticRecords statusWeights(final Map<StatusEnum, Integer> weights) {
+        final List<StatusEnum> weightedStatuses = new ArrayList<>();
+        for (Map.Entry<StatusEnum, Integer> weight : new EnumMap<>(weights).entrySet()) {
+            for (int count = 0; count < weight.getValue(); count++) {
+                weightedStatuses.add(weight.getKey());
+            }
+        }
+        if (weightedStatuses.isEmpty()) {
+            throw new IllegalArgumentException("At least one status must have a positive weight");
+        }
+        this.statuses = weightedStatuses.toArray(new StatusEnum[0]);
+        return this;
+    }
+
+    /**
+     * Limits the number of distinct names. Beyond the combinations of the sample adjectives and scientists,
+     * names get a numeric suffix.
+     *
+     * @param nameCardinality The number of distinct names, or 0 for every combination of the sample adjectives and scientists
+     * @return This generator
+     */
+    public SyntheticRecords nameCardinality(final int nameCardinality) {
+        this.nameCardinality = nameCardinality;
+        return this;
+    }
+
+    /**
+     * Generates records with unique ids in descending order, like the storage object
+     *
+     * @param size The number of records
+     * @param consumer The consumer of every generated record, in order
+     */
+    public void generate(final long size, final Consumer<Record> consumer) {
+        final Random random = new Random(seed);
+        final String[] descriptions = new String[DESCRIPTION_POOL_SIZE];
+        for (int index = 0; index < descriptions.length; index++) {
+            descriptions[index] = createDescription(random);
+        }
+        final long firstCreatedOn = VOCABULARY.firstCreatedOn().toEpochMilli();
+        final long createdOnRange = Math.max(1, VOCABULARY.lastCreatedOn().toEpochMilli() - firstCreatedOn);
+        final String[] adjectives = VOCABULARY.adjectives();
+        final String[] scientists = VOCABULARY.scientists();
+        final int combinations = adjectives.length * scientists.length;
+        final int names = nameCardinality > 0 ? nameCardinality : combinations;
+        // Distinct names are taken from the shuffled combinations, so a low cardinality still mixes adjectives and scientists
+        final int[] combinationOrder = new int[combinations];
+        for (int code = 0; code < combinations; code++) {
+            final int position = random.nextInt(code + 1);
+            combinationOrder[code] = combinationOrder[position];
+            combinationOrder[position] = code;
+        }
+        for (long index = 0; index < size; index++) {
+            final int nameCode = random.nextInt(names);
+            final int combinationCode = combinationOrder[nameCode % combinations];
+            final String combination = adjectives[combinationCode / scientists.length] + "_" + scientists[combinationCode % scientists.length];
+            final String name = nameCode < combinations ? combination : combination + "_" + nameCode / combinations;
+            // Missing dates are the epoch placeholder of the sample rather than null, which the list comparators do not accept
+            final Instant createdOn = random.nextInt(100) < 2 ? Instant.EPOCH : Instant.ofEpochSecond((firstCreatedOn + (long) (random.nextDouble() * createdOnRange)) / 1000);
+            final String description = random.nextInt(100) < 5 ? null : descriptions[random.nextInt(descriptions.length)];
+            final Long delta = random.nextInt(100) < 2 ? null : (long) random.nextInt(6000);
+            consumer.accept(new Record(size - index, name, createdOn, statuses[random.nextInt(statuses.length)], description, delta));
+        }
+    }
+
+    /**
+     * Writes a record the way the storage object does, with the creation date in epoch milliseconds
+     *
+     * @param generator The json generator
+     * @param record The record to write
+     * @throws IOException when the record can not be written
+     */
+    public static void write(final JsonGenerator generator, final Record record) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", record.getId());
+        generator.writeStringField("status", record.getStatus().toString());
+        generator.writeNumberField("createdOn", record.getCreatedOn().toEpochMilli());
+        generator.writeStringField("name", record.getName());
+        if (record.getDescription() != null) {
+            generator.writeStringField("description", record.getDescription());
+        }
+        if (record.getDelta() != null) {
+            generator.writeNumberField("delta", record.getDelta());
+        }
+        generator.writeEndObject();
+    }
+
+    private static String createDescription(final Random random) {
+        final String[] words = VOCABULARY.words();
+        final int length = 4 + random.nextInt(5);
+        final StringBuilder description = new StringBuilder();
+        for (int index = 0; index < length; index++) {
+            final String word = words[random.nextInt(words.length)];
+            if (index == 0) {
+                description.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                description.append(' ').append(word);
+            }
+        }
+        return description.append('.').toString();
+    }
+
+    private static Vocabulary readVocabulary() {
+        final TreeSet<String> adjectives = new TreeSet<>();
+        final TreeSet<String> scientists = new TreeSet<>();
+        final TreeSet<String> words = new TreeSet<>();
+        final List<StatusEnum> statuses = new ArrayList<>();
+        final Instant[] createdOnRange = new Instant[2];
+        try (InputStream input = SyntheticRecords.class.getResourceAsStream(SAMPLE_RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing sample records " + SAMPLE_RESOURCE);
+            }
+            RecordStreamReader.read(input, record -> {
+                if (record.getName() != null && record.getName().contains("_")) {
+                    adjectives.add(record.getName().substring(0, record.getName().indexOf('_')));
+                    scientists.add(record.getName().substring(record.getName().indexOf('_') + 1));
+                }
+                if (record.getDescription() != null) {
+                    for (String word : record.getDescription().toLowerCase().replace(".", "").split("\\s+")) {
+                        if (!word.isEmpty()) {
+                            words.add(word);
+                        }
+                    }
+                }
+                if (record.getStatus() != null) {
+                    statuses.add(record.getStatus());
+                }
+                // Sample dates before 2018 are placeholders, they would stretch the range over decades
+                if (record.getCreatedOn() != null && record.getCreatedOn().isAfter(Instant.parse("2018-01-01T00:00:00Z"))) {
+                    createdOnRange[0] = createdOnRange[0] == null || record.getCreatedOn().isBefore(createdOnRange[0]) ? record.getCreatedOn() : createdOnRange[0];
+                    createdOnRange[1] = createdOnRange[1] == null || record.getCreatedOn().isAfter(createdOnRange[1]) ? record.getCreatedOn() : createdOnRange[1];
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Vocabulary(adjectives.toArray(new String[0]), scientists.toArray(new String[0]), words.toArray(new String[0]),
+                statuses.toArray(new StatusEnum[0]), createdOnRange[0], createdOnRange[1]);
+    }
+
+    /**
+     * The values of the sample records. Statuses keep one entry per sample record, so drawing from them follows the sample frequencies.
+     */
+    private record Vocabulary(String[] adjectives, String[] scientists, String[] words, StatusEnum[] statuses,
+                              Instant firstCreatedOn, Instant lastCreatedOn) {
+    }
+}
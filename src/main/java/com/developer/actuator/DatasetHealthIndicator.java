@@ -0,0 +1,59 @@
+package com.developer.actuator;
+
+import com.developer.persistence.store.RecordDataset;
+import com.developer.service.DataService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Reports whether the records are in memory. It is part of the readiness group, so with eager loading
+ * the service only receives traffic once the dataset is loaded.
+ */
+@Component("dataset")
+public class DatasetHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    DataService dataService;
+
+    @Override
+    public Health health() {
+        final RecordDataset dataset = dataService.getLoadedDataset();
+        if (dataset != null) {
+            final Health.Builder health = Health.up()
+                    .withDetail("records", dataset.size())
+                    .withDetail("version", dataset.getVersion())
+                    .withDetail("builtAt", dataset.getBuiltAt().toString());
+            if (dataset.isRestoredFromSnapshot()) {
+                health.withDetail("restoredFromSnapshot", true);
+            }
+            if (!dataset.getAppliedSegments().isEmpty()) {
+                health.withDetail("appliedSegments", dataset.getAppliedSegments().size());
+            }
+            if (dataset.getSourceGeneration() != null) {
+                health.withDetail("sourceGeneration", dataset.getSourceGeneration());
+            }
+            final Instant lastRefreshAt = dataService.getLastRefreshAt();
+            if (lastRefreshAt != null) {
+                health.withDetail("lastRefreshAt", lastRefreshAt.toString());
+            }
+            final Throwable lastLoadFailure = dataService.getLastLoadFailure();
+            if (lastLoadFailure != null) {
+                // A failed refresh keeps serving the previous dataset
+                health.withDetail("lastRefreshError", String.valueOf(lastLoadFailure.getMessage()));
+            }
+            return health.build();
+        }
+        if (!dataService.isEagerLoadEnabled()) {
+            return Health.up().withDetail("loaded", false).build();
+        }
+        final Throwable lastLoadFailure = dataService.getLastLoadFailure();
+        if (lastLoadFailure != null) {
+            return Health.down().withDetail("loaded", false).withDetail("error", String.valueOf(lastLoadFailure.getMessage())).build();
+        }
+        return Health.outOfService().withDetail("loaded", false).build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.developer.actuator;
+
+import com.developer.persistence.store.RecordDataset;
+import com.developer.service.DataService;
+import com.developer.service.ParallelQueryExecutor;
+import com.developer.service.RecordPageSerializer;
+import com.developer.service.RecordQueryCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Reports the size, estimated heap footprint, version and age of the loaded dataset, and the hits, misses
+ * and hit ratios of the query cache and of the compressed page cache, and whether large queries ran in parallel.
+ * Dataset gauges are not a number while the dataset is not loaded.
+ */
+@Component
+public class DatasetMetrics implements MeterBinder {
+
+    @Autowired
+    DataService dataService;
+
+    @Autowired
+    RecordQueryCache recordQueryCache;
+
+    @Autowired
+    RecordPageSerializer recordPageSerializer;
+
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        datasetGauge("records.dataset.size", "Number of records of the loaded dataset", null, RecordDataset::size, registry);
+        datasetGauge("records.dataset.heap", "Estimated heap footprint of the columns and indexes of the loaded dataset and of the cached json of its records",
+                BaseUnits.BYTES, dataset -> dataset.estimateHeapBytes() + recordPageSerializer.estimateFragmentHeapBytes(dataset), registry);
+        datasetGauge("records.dataset.version", "Version of the loaded dataset", null, RecordDataset::getVersion, registry);
+        datasetGauge("records.dataset.age", "Time since the loaded dataset was built", "seconds",
+                dataset -> Duration.between(dataset.getBuiltAt(), Instant.now()).toMillis() / 1000.0, registry);
+
+        cacheMeters("records.query.cache", "query", recordQueryCache,
+                RecordQueryCache::getHitCount, RecordQueryCache::getMissCount, RecordQueryCache::size, registry);
+        cacheMeters("records.page.gzip.cache", "compressed page", recordPageSerializer,
+                RecordPageSerializer::getGzipHitCount, RecordPageSerializer::getGzipMissCount, RecordPageSerializer::getGzipCacheSize, registry);
+
+        FunctionCounter.builder("records.query.large", parallelQueryExecutor, ParallelQueryExecutor::getParallelCount)
+                .description("Number of large query stages, by whether they ran in parallel or sequentially because the pool was busy")
+                .tag("execution", "parallel")
+                .register(registry);
+        FunctionCounter.builder("records.query.large", parallelQueryExecutor, ParallelQueryExecutor::getSequentialCount)
+                .description("Number of large query stages, by whether they ran in parallel or sequentially because the pool was busy")
+                .tag("execution", "sequential")
+                .register(registry);
+    }
+
+    private void datasetGauge(final String name, final String description, final String baseUnit,
+                              final ToDoubleFunction<RecordDataset> value, final MeterRegistry registry) {
+        Gauge.builder(name, dataService, service -> {
+                    final RecordDataset dataset = service.getLoadedDataset();
+                    return dataset == null ? Double.NaN : value.applyAsDouble(dataset);
+                })
+                .description(description)
+                .baseUnit(baseUnit)
+                .register(registry);
+    }
+
+    private static <T> void cacheMeters(final String name, final String entries, final T cache,
+                                        final ToDoubleFunction<T> hits, final ToDoubleFunction<T> misses,
+                                        final ToDoubleFunction<T> size, final MeterRegistry registry) {
+        FunctionCounter.builder(name + ".requests", cache, hits)
+                .description("Number of " + entries + " cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder(name + ".requests", cache, misses)
+                .description("Number of " + entries + " cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder(name + ".hit.ratio", cache, value -> {
+                    final double lookups = hits.applyAsDouble(value) + misses.applyAsDouble(value);
+                    return lookups == 0 ? Double.NaN : hits.applyAsDouble(value) / lookups;
+                })
+                .description("Share of the " + entries + " cache lookups answered from the cache since startup")
+                .register(registry);
+        Gauge.builder(name + ".size", cache, size)
+                .description("Number of cached " + entries + " entries")
+                .register(registry);
+    }
+}
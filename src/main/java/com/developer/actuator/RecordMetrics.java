@@ -0,0 +1,160 @@
+package com.developer.actuator;
+
+import com.developer.persistence.store.RecordSort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers of the stages of the records pipeline: the filter, aggregate, sort, paginate, serialize and compress stages of a page request,
+ * and the metadata, download, parse, index, snapshot and segment stages of a dataset load.
+ * Histograms and percentiles of both timers are configured with the management.metrics.distribution properties.
+ */
+@Component
+public class RecordMetrics {
+    public static final String REQUEST_STAGE_TIMER = "records.request.stage";
+    public static final String LOAD_STAGE_TIMER = "records.dataset.load.stage";
+
+    public static final String FILTER_STAGE = "filter";
+    public static final String SORT_STAGE = "sort";
+    public static final String PAGINATE_STAGE = "paginate";
+    public static final String SERIALIZE_STAGE = "serialize";
+    public static final String COMPRESS_STAGE = "compress";
+    public static final String AGGREGATE_STAGE = "aggregate";
+
+    public static final String METADATA_STAGE = "metadata";
+    public static final String DOWNLOAD_STAGE = "download";
+    public static final String PARSE_STAGE = "parse";
+    public static final String INDEX_STAGE = "index";
+    public static final String SNAPSHOT_RESTORE_STAGE = "snapshot_restore";
+    public static final String SEGMENT_MERGE_STAGE = "segment_merge";
+
+    private static final String CURSOR_PAGE_DEPTH = "cursor";
+    private static final String COMPOSITE_SORT = "composite";
+
+    @Autowired
+    MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    /**
+     * Creates the tags of the stages of a page request
+     *
+     * @param sort The sort criteria, tagged with its field or as composite when there are several fields
+     * @param isFiltered Whether a name or status filter applies
+     * @param page The page number
+     * @param hasCursor Whether the page follows a cursor instead of a page number
+     * @return The tags of the request stages
+     */
+    public Tags requestTags(final RecordSort sort, final boolean isFiltered, final int page, final boolean hasCursor) {
+        return Tags.of("sortBy", sort.isComposite() ? COMPOSITE_SORT : sort.getField().name().toLowerCase(),
+                "filtered", Boolean.toString(isFiltered),
+                "pageDepth", hasCursor ? CURSOR_PAGE_DEPTH : pageDepth(page));
+    }
+
+    /**
+     * Times a stage of a page request
+     *
+     * @param stage The stage name
+     * @param tags The tags of the request
+     * @param task The work of the stage
+     * @return The result of the stage
+     */
+    public <T> T timeRequestStage(final String stage, final Tags tags, final Supplier<T> task) {
+        return Timer.builder(REQUEST_STAGE_TIMER)
+                .description("Duration of a stage of a page request")
+                .tags(tags)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(task);
+    }
+
+    /**
+     * Times a stage of a dataset load
+     *
+     * @param stage The stage name
+     * @param task The work of the stage
+     * @return The result of the stage
+     */
+    public <T> T timeLoadStage(final String stage, final Supplier<T> task) {
+        return loadStageTimer(stage).record(task);
+    }
+
+    /**
+     * Records the duration of a stage of a dataset load measured by the caller
+     *
+     * @param stage The stage name
+     * @param nanos The duration in nanoseconds
+     */
+    public void recordLoadStage(final String stage, final long nanos) {
+        loadStageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer loadStageTimer(final String stage) {
+        return Timer.builder(LOAD_STAGE_TIMER)
+                .description("Duration of a stage of a dataset load")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buckets page numbers by order of magnitude, so the tag keeps a bounded number of values
+     */
+    static String pageDepth(final int page) {
+        if (page <= 1) {
+            return "1";
+        } else if (page <= 10) {
+            return "2-10";
+        } else if (page <= 100) {
+            return "11-100";
+        } else if (page <= 1000) {
+            return "101-1000";
+        }
+        return "1001+";
+    }
+
+    /**
+     * Input stream measuring the time spent waiting in its reads, which is the download time of a streamed storage object
+     */
+    public static class ReadTimingInputStream extends FilterInputStream {
+        private long readNanos;
+
+        public ReadTimingInputStream(final InputStream input) {
+            super(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final long startTime = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                readNanos += System.nanoTime() - startTime;
+            }
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final long startTime = System.nanoTime();
+            try {
+                return super.read(buffer, offset, length);
+            } finally {
+                readNanos += System.nanoTime() - startTime;
+            }
+        }
+
+        /**
+         * @return The time spent in reads, in nanoseconds
+         */
+        public long getReadNanos() {
+            return readNanos;
+        }
+    }
+}
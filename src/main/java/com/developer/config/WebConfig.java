@@ -1,5 +1,6 @@
 package com.developer.config;
 
+import com.developer.controller.converter.StringToEnumFacetConverter;
 import com.developer.controller.converter.StringToEnumFieldConverter;
 import com.developer.controller.converter.StringToEnumOrderConverter;
 import com.developer.controller.converter.StringToEnumStatusConverter;
@@ -15,10 +16,14 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addConverter(new StringToEnumStatusConverter());
         registry.addConverter(new StringToEnumFieldConverter());
         registry.addConverter(new StringToEnumOrderConverter());
+        registry.addConverter(new StringToEnumFacetConverter());
     }
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/api/records").allowedOrigins("http://localhost:3000");
+        registry.addMapping("/api/records").allowedOrigins("http://localhost:3000").exposedHeaders("ETag");
+        registry.addMapping("/api/records/export").allowedOrigins("http://localhost:3000");
+        registry.addMapping("/api/records/stats").allowedOrigins("http://localhost:3000").exposedHeaders("ETag");
+        registry.addMapping("/api/records/batch").allowedOrigins("http://localhost:3000").allowedMethods("POST");
     }
 }
\ No newline at end of file
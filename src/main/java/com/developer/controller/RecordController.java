@@ -1,29 +1,72 @@
 package com.developer.controller;
 
+import com.developer.actuator.RecordMetrics;
 import com.developer.controller.model.*;
-import com.developer.controller.model.Record;
+import com.developer.persistence.store.NameIndex;
+import com.developer.persistence.store.RecordAggregates;
+import com.developer.persistence.store.RecordCursor;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordRanges;
+import com.developer.persistence.store.RecordSort;
 import com.developer.service.DataService;
+import com.developer.service.RecordPageSerializer;
 import com.developer.service.RecordProcessingService;
+import com.developer.service.RecordQueryCache;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api")
 @Validated
 public class RecordController {
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String GZIP_ENCODING = "gzip";
+    private static final int MAX_BATCH_QUERIES = 20;
+    private static final int DEFAULT_PAGE_SIZE = 20;
 
     @Autowired
     DataService dataService;
@@ -31,94 +74,488 @@ public class RecordController {
     @Autowired
     RecordProcessingService recordProcessingService;
 
+    @Autowired
+    RecordQueryCache recordQueryCache;
+
+    @Autowired
+    RecordPageSerializer recordPageSerializer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    RecordMetrics recordMetrics;
+
+    @Value("${dataservice.http.max-age:0s}")
+    Duration maxAge = Duration.ZERO;
+
     /**
      * Retrieves a list of records based on specified filters and pagination
      *
      * @param name Filters records by name
-     * @param status Filters records by status
+     * @param status Filters records by any of the statuses
+     * @param createdFrom Filters records created at or after the instant
+     * @param createdTo Filters records created before the instant
+     * @param deltaMin Filters records with a delta greater than or equal to the value
+     * @param deltaMax Filters records with a delta less than or equal to the value
      * @param page Page number for pagination (default: 1)
      * @param pageSize Number of records per page (default: 20, max: 100)
-     * @param field Sort by field criteria
-     * @param order Order by criteria
-     * @return A ResponseEntity containing a list of Record objects
+     * @param field Sort by field criteria, from the most to the least significant field
+     * @param order Order by criteria of every sort field
+     * @param cursor Opaque cursor returned as nextCursor by the previous page, replaces the page number
+     * @param facets Aggregates of the filtered records added to the page: the number of records of every status
+     *               matching the name and range filters, and the delta aggregates of the records matching every filter
+     * @param acceptEncoding The encodings accepted by the client, cached pages are sent gzip compressed when it is accepted
+     * @param request The request, answered with 304 Not Modified when its If-None-Match matches the ETag of the page
+     * @return A ResponseEntity containing the json of the page of records
      */
     @RequestMapping(
             method = RequestMethod.GET,
             value = "/records",
             produces = {"application/json"}
     )
-    ResponseEntity<RecordPage> getRecords(
+    ResponseEntity<byte[]> getRecords(
             @Valid @RequestParam(value = "name", required = false, defaultValue = "") String name,
-            @Valid @RequestParam(value = "status", required = false) StatusEnum status,
+            @Valid @RequestParam(value = "status", required = false) List<StatusEnum> status,
+            @Valid @RequestParam(value = "createdFrom", required = false) Instant createdFrom,
+            @Valid @RequestParam(value = "createdTo", required = false) Instant createdTo,
+            @Valid @RequestParam(value = "deltaMin", required = false) Long deltaMin,
+            @Valid @RequestParam(value = "deltaMax", required = false) Long deltaMax,
             @Min(1) @Valid @RequestParam(value = "page", required = false, defaultValue = "1") Integer page,
             @Min(1) @Max(100) @Valid @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize,
-            @Valid @RequestParam(value = "sortBy", required = false) FieldEnum field,
-            @Valid @RequestParam(value = "sortOrder", required = false) OrderEnum order
+            @Valid @RequestParam(value = "sortBy", required = false) List<FieldEnum> field,
+            @Valid @RequestParam(value = "sortOrder", required = false) List<OrderEnum> order,
+            @Valid @RequestParam(value = "cursor", required = false) String cursor,
+            @Valid @RequestParam(value = "facets", required = false) List<FacetEnum> facets,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request
     ) {
-        List<Record> filteredRecordData = filterRecords(dataService.getRecords(), name, status);
-        sortRecords(filteredRecordData, field, order);
-        final int totalPages = countNumberOfPages(filteredRecordData.size(), pageSize);
-        final int totalRecords = filteredRecordData.size();
-        RecordPage recordPage = new RecordPage(totalPages, totalRecords, paginateRecords(filteredRecordData, pageSize, page));
-        return new ResponseEntity<>(recordPage, HttpStatus.OK);
+        final RecordSort sort = RecordSort.of(field, order);
+        final RecordRanges ranges = RecordRanges.of(createdFrom, createdTo, deltaMin, deltaMax);
+        final Set<FacetEnum> facetSet = facets == null || facets.isEmpty() ? EnumSet.noneOf(FacetEnum.class) : EnumSet.copyOf(facets);
+        final RecordDataset dataset = dataService.getDataset();
+        final boolean isFiltered = !StringUtils.isEmpty(name) || (null != status && !status.isEmpty()) || !ranges.isEmpty();
+        final boolean isCached = StringUtils.isEmpty(cursor) && isFiltered && recordQueryCache.isEnabled();
+        final boolean isGzipped = isCached && isGzipAccepted(acceptEncoding);
+
+        // The page only depends on the dataset version and the query, so a matching ETag is answered before any work
+        final String eTag = createETag(dataset, RecordQueryCache.Key.of(name, status, ranges, sort) + "|" + pageSize
+                + "|" + (StringUtils.isEmpty(cursor) ? page : 0) + "|" + Objects.toString(cursor, "") + "|" + facetSet, isGzipped);
+        final CacheControl cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+        if (request.checkNotModified(eTag)) {
+            final ResponseEntity.HeadersBuilder<?> notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl);
+            return isCached ? notModified.varyBy(HttpHeaders.ACCEPT_ENCODING).build() : notModified.build();
+        }
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(eTag).cacheControl(cacheControl);
+
+        // Uncached pages select their rows while sorting, so the sort stage of those pages includes pagination
+        final Tags stageTags = recordMetrics.requestTags(sort, isFiltered, page, !StringUtils.isEmpty(cursor));
+        if (!StringUtils.isEmpty(cursor)) {
+            final Filter filter = recordMetrics.timeRequestStage(RecordMetrics.FILTER_STAGE, stageTags,
+                    () -> filterRecords(dataset, name, status, ranges, facetSet, stageTags));
+            final int totalRecords = filter.rows() == null ? dataset.size() : filter.rows().cardinality();
+            // One more row than the page is collected, the next cursor is only returned when a record follows the page
+            final int[] rows = recordMetrics.timeRequestStage(RecordMetrics.SORT_STAGE, stageTags,
+                    () -> recordProcessingService.getSortedRowsPageAfter(dataset, sort, filter.rows(), pageSize + 1, RecordCursor.decode(cursor)));
+            final boolean hasNextPage = rows.length > pageSize;
+            final int[] pageRows = hasNextPage ? Arrays.copyOf(rows, pageSize) : rows;
+            return response.body(recordMetrics.timeRequestStage(RecordMetrics.SERIALIZE_STAGE, stageTags,
+                    () -> createRecordPage(dataset, totalRecords, pageSize, pageRows, hasNextPage, sort, filter.facets())));
+        } else if (isCached) {
+            // Facets are computed on every request, the rows filtered on the way are reused when the sorted rows are not cached
+            final Filter facetFilter = facetSet.isEmpty() ? null : recordMetrics.timeRequestStage(RecordMetrics.FILTER_STAGE, stageTags,
+                    () -> filterRecords(dataset, name, status, ranges, facetSet, stageTags));
+            final RecordStats facetStats = facetFilter == null ? null : facetFilter.facets();
+            final int[] sortedRows = recordQueryCache.get(dataset, RecordQueryCache.Key.of(name, status, ranges, sort), () -> {
+                final BitSet filter = facetFilter != null ? facetFilter.rows() : recordMetrics.timeRequestStage(RecordMetrics.FILTER_STAGE, stageTags,
+                        () -> filterRecords(dataset, name, status, ranges));
+                return recordMetrics.timeRequestStage(RecordMetrics.SORT_STAGE, stageTags,
+                        () -> recordProcessingService.getSortedRows(dataset, sort, filter));
+            });
+            final int[] pageRows = recordMetrics.timeRequestStage(RecordMetrics.PAGINATE_STAGE, stageTags,
+                    () -> recordProcessingService.getRowsPage(sortedRows, pageSize, page));
+            final boolean hasNextPage = (long) pageSize * page < sortedRows.length;
+            response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (!isGzipped) {
+                return response.body(recordMetrics.timeRequestStage(RecordMetrics.SERIALIZE_STAGE, stageTags,
+                        () -> createRecordPage(dataset, sortedRows.length, pageSize, pageRows, hasNextPage, sort, facetStats)));
+            }
+            final List<Object> pageKey = List.of(RecordQueryCache.Key.of(name, status, ranges, sort), pageSize, page, facetSet);
+            final byte[] compressedPage = recordMetrics.timeRequestStage(RecordMetrics.COMPRESS_STAGE, stageTags,
+                    () -> recordPageSerializer.gzip(dataset, pageKey, () -> recordMetrics.timeRequestStage(RecordMetrics.SERIALIZE_STAGE, stageTags,
+                            () -> createRecordPage(dataset, sortedRows.length, pageSize, pageRows, hasNextPage, sort, facetStats))));
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING).body(compressedPage);
+        } else {
+            final Filter filter = recordMetrics.timeRequestStage(RecordMetrics.FILTER_STAGE, stageTags,
+                    () -> filterRecords(dataset, name, status, ranges, facetSet, stageTags));
+            final int totalRecords = filter.rows() == null ? dataset.size() : filter.rows().cardinality();
+            final int[] pageRows = recordMetrics.timeRequestStage(RecordMetrics.SORT_STAGE, stageTags,
+                    () -> recordProcessingService.getSortedRowsPage(dataset, sort, filter.rows(), pageSize, page));
+            return response.body(recordMetrics.timeRequestStage(RecordMetrics.SERIALIZE_STAGE, stageTags,
+                    () -> createRecordPage(dataset, totalRecords, pageSize, pageRows, (long) pageSize * page < totalRecords, sort, filter.facets())));
+        }
     }
 
     /**
-     * Filters a list of records based on name and status
+     * Retrieves the pages of several queries at once, each query taking the same criteria as the page requests.
+     * Queries are evaluated together: identical name and range filters, and identical status filters on top of them,
+     * are resolved once for the batch. Filtered queries with the same filter and sort criteria share their sorted rows,
+     * through the query cache when it is enabled, and only differ by the page taken from those rows. The other queries
+     * take the same path as an uncached page request, which selects the page without sorting every filtered record.
      *
-     * @param recordData The list of records to filter
-     * @param name    The name to filter by
-     * @param status  The status to filter by
-     * @return The filtered list of records
+     * @param queries The queries, at most 20
+     * @return A ResponseEntity containing the json array of the pages of records, in the order of the queries
      */
-    private List<Record> filterRecords(final List<Record> recordData, final String name, final StatusEnum status) {
-        List<Record> filteredRecordData = new ArrayList<>(recordData);
-        if (!StringUtils.isEmpty(name)) {
-            filteredRecordData = recordProcessingService.filterByName(filteredRecordData, name);
+    @RequestMapping(
+            method = RequestMethod.POST,
+            value = "/records/batch",
+            consumes = {"application/json"},
+            produces = {"application/json"}
+    )
+    ResponseEntity<byte[]> getRecordsBatch(
+            @Size(max = MAX_BATCH_QUERIES) @RequestBody List<@Valid RecordQuery> queries
+    ) {
+        final RecordDataset dataset = dataService.getDataset();
+        final List<BatchQuery> batchQueries = queries.stream().map(BatchQuery::of).toList();
+        final Map<List<Object>, BitSet> candidateRowsByFilter = new HashMap<>();
+        final Map<List<Object>, BitSet> filteredRowsByFilter = new HashMap<>();
+        // Distinct filters are resolved on first use, the shared candidate rows are copied before the status filter narrows them
+        final Function<BatchQuery, BitSet> candidateRowsOf = query -> candidateRowsByFilter.computeIfAbsent(query.candidateKey(),
+                key -> findCandidateRows(dataset, query.name(), query.ranges()));
+        final Function<BatchQuery, BitSet> filteredRowsOf = query -> filteredRowsByFilter.computeIfAbsent(query.filterKey(), key -> {
+            final BitSet candidateRows = candidateRowsOf.apply(query);
+            return applyStatusFilter(dataset, candidateRows == null || query.status().isEmpty() ? candidateRows : (BitSet) candidateRows.clone(),
+                    query.status());
+        });
+
+        final Map<List<Object>, List<Integer>> queriesBySortedRows = new LinkedHashMap<>();
+        for (int index = 0; index < batchQueries.size(); index++) {
+            final BatchQuery query = batchQueries.get(index);
+            if (StringUtils.isEmpty(query.cursor()) && query.isFiltered()) {
+                queriesBySortedRows.computeIfAbsent(List.of(query.filterKey(), query.sort()), key -> new ArrayList<>()).add(index);
+            }
+        }
+        final byte[][] pages = new byte[batchQueries.size()][];
+        for (List<Integer> sortedRowsQueries : queriesBySortedRows.values()) {
+            if (sortedRowsQueries.size() < 2 && !recordQueryCache.isEnabled()) {
+                continue;
+            }
+            final BatchQuery firstQuery = batchQueries.get(sortedRowsQueries.getFirst());
+            final int[] sortedRows = !recordQueryCache.isEnabled()
+                    ? recordProcessingService.getSortedRows(dataset, firstQuery.sort(), filteredRowsOf.apply(firstQuery))
+                    : recordQueryCache.get(dataset, RecordQueryCache.Key.of(firstQuery.name(), firstQuery.status(), firstQuery.ranges(), firstQuery.sort()),
+                            () -> recordProcessingService.getSortedRows(dataset, firstQuery.sort(), filteredRowsOf.apply(firstQuery)));
+            for (int index : sortedRowsQueries) {
+                final BatchQuery query = batchQueries.get(index);
+                pages[index] = createRecordPage(dataset, sortedRows.length, query.pageSize(),
+                        recordProcessingService.getRowsPage(sortedRows, query.pageSize(), query.page()),
+                        (long) query.pageSize() * query.page() < sortedRows.length, query.sort(), createBatchFacets(dataset, query, candidateRowsOf));
+            }
         }
-        if (null != status) {
-            filteredRecordData = recordProcessingService.filterByStatus(filteredRecordData, status);
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('[');
+        for (int index = 0; index < batchQueries.size(); index++) {
+            final BatchQuery query = batchQueries.get(index);
+            if (pages[index] == null) {
+                final BitSet filter = filteredRowsOf.apply(query);
+                final int totalRecords = filter == null ? dataset.size() : filter.cardinality();
+                final RecordStats facets = createBatchFacets(dataset, query, candidateRowsOf);
+                if (!StringUtils.isEmpty(query.cursor())) {
+                    final int[] rows = recordProcessingService.getSortedRowsPageAfter(dataset, query.sort(), filter, query.pageSize() + 1,
+                            RecordCursor.decode(query.cursor()));
+                    final boolean hasNextPage = rows.length > query.pageSize();
+                    pages[index] = createRecordPage(dataset, totalRecords, query.pageSize(), hasNextPage ? Arrays.copyOf(rows, query.pageSize()) : rows,
+                            hasNextPage, query.sort(), facets);
+                } else {
+                    final int[] pageRows = recordProcessingService.getSortedRowsPage(dataset, query.sort(), filter, query.pageSize(), query.page());
+                    pages[index] = createRecordPage(dataset, totalRecords, query.pageSize(), pageRows,
+                            (long) query.pageSize() * query.page() < totalRecords, query.sort(), facets);
+                }
+            }
+            if (index > 0) {
+                body.write(',');
+            }
+            body.writeBytes(pages[index]);
+        }
+        body.write(']');
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.toByteArray());
+    }
+
+    /**
+     * Retrieves the number of records of every status and the aggregates of the record deltas: count, sum,
+     * minimum, maximum and the 50th, 90th, 95th and 99th nearest-rank percentiles. Status counts cover the records
+     * matching the name and range filters, whatever the status filter, and the other aggregates the records matching every filter.
+     * The aggregates of every record are computed when the dataset is loaded.
+     *
+     * @param name Filters records by name
+     * @param status Filters records by any of the statuses
+     * @param createdFrom Filters records created at or after the instant
+     * @param createdTo Filters records created before the instant
+     * @param deltaMin Filters records with a delta greater than or equal to the value
+     * @param deltaMax Filters records with a delta less than or equal to the value
+     * @param request The request, answered with 304 Not Modified when its If-None-Match matches the ETag of the aggregates
+     * @return A ResponseEntity containing the aggregates of the filtered records
+     */
+    @RequestMapping(
+            method = RequestMethod.GET,
+            value = "/records/stats",
+            produces = {"application/json"}
+    )
+    ResponseEntity<RecordStats> getRecordStats(
+            @Valid @RequestParam(value = "name", required = false, defaultValue = "") String name,
+            @Valid @RequestParam(value = "status", required = false) List<StatusEnum> status,
+            @Valid @RequestParam(value = "createdFrom", required = false) Instant createdFrom,
+            @Valid @RequestParam(value = "createdTo", required = false) Instant createdTo,
+            @Valid @RequestParam(value = "deltaMin", required = false) Long deltaMin,
+            @Valid @RequestParam(value = "deltaMax", required = false) Long deltaMax,
+            WebRequest request
+    ) {
+        final RecordRanges ranges = RecordRanges.of(createdFrom, createdTo, deltaMin, deltaMax);
+        final RecordDataset dataset = dataService.getDataset();
+        final String eTag = createETag(dataset, "stats|" + RecordQueryCache.Key.of(name, status, ranges, RecordSort.of(null, null)), false);
+        final CacheControl cacheControl = maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
         }
-        return filteredRecordData;
+        final RecordAggregates aggregates = recordProcessingService.aggregate(dataset, findCandidateRows(dataset, name, ranges), status);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl)
+                .body(createRecordStats(aggregates, EnumSet.allOf(FacetEnum.class), true));
     }
 
     /**
-     * Sorts a list of records based on a field and order
+     * Streams every record matching the filters as newline delimited json, in sort order.
+     * Records are written one at a time to the response as the client reads them, so memory use does not
+     * depend on the number of records. The export reads a single dataset version from start to end.
      *
-     * @param recordData The list of records to sort
-     * @param field   The field to sort by
-     * @param order   The sorting order (asc or desc)
+     * @param name Filters records by name
+     * @param status Filters records by any of the statuses
+     * @param createdFrom Filters records created at or after the instant
+     * @param createdTo Filters records created before the instant
+     * @param deltaMin Filters records with a delta greater than or equal to the value
+     * @param deltaMax Filters records with a delta less than or equal to the value
+     * @param field Sort by field criteria, from the most to the least significant field
+     * @param order Order by criteria of every sort field
+     * @param response The response the records are written to
+     * @throws IOException when the response can not be written, e.g. when the client disconnects
      */
-    private void sortRecords(final List<Record> recordData, final FieldEnum field, final OrderEnum order) {
-        if (field == null) {
-            recordProcessingService.orderById(recordData, OrderEnum.ASC);
-            return;
+    @RequestMapping(
+            method = RequestMethod.GET,
+            value = "/records/export",
+            produces = {NDJSON_CONTENT_TYPE}
+    )
+    void exportRecords(
+            @Valid @RequestParam(value = "name", required = false, defaultValue = "") String name,
+            @Valid @RequestParam(value = "status", required = false) List<StatusEnum> status,
+            @Valid @RequestParam(value = "createdFrom", required = false) Instant createdFrom,
+            @Valid @RequestParam(value = "createdTo", required = false) Instant createdTo,
+            @Valid @RequestParam(value = "deltaMin", required = false) Long deltaMin,
+            @Valid @RequestParam(value = "deltaMax", required = false) Long deltaMax,
+            @Valid @RequestParam(value = "sortBy", required = false) List<FieldEnum> field,
+            @Valid @RequestParam(value = "sortOrder", required = false) List<OrderEnum> order,
+            HttpServletResponse response
+    ) throws IOException {
+        final RecordSort sort = RecordSort.of(field, order);
+        final RecordDataset dataset = dataService.getDataset();
+        final PrimitiveIterator.OfInt rows = recordProcessingService.iterateSortedRows(dataset, sort,
+                filterRecords(dataset, name, status, RecordRanges.of(createdFrom, createdTo, deltaMin, deltaMax)));
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            while (rows.hasNext()) {
+                generator.writeObject(dataset.getRecord(rows.nextInt()));
+                generator.writeRaw('\n');
+            }
         }
-        switch (field) {
-            case ID:
-                recordProcessingService.orderById(recordData, order);
-                break;
-            case NAME:
-                recordProcessingService.orderByName(recordData, order);
-                break;
-            case CREATEDON:
-                recordProcessingService.orderByCreatedOn(recordData, order);
-                break;
-            default:
-                recordProcessingService.orderById(recordData, OrderEnum.ASC);
+    }
+
+    /**
+     * Creates the json of the page of records, with the cursor of the next page when there is one.
+     * The json of every record is serialized once per dataset version and spliced into the page.
+     *
+     * @param dataset      The dataset of records
+     * @param totalRecords The number of filtered records
+     * @param pageSize     The number of records per page
+     * @param pageRows     The row positions of the records of the page
+     * @param hasNextPage  Whether more records follow the page
+     * @param sort         The sort criteria
+     * @param facets       The aggregates of the filtered records, or null when they are not requested
+     * @return The json of the page of records
+     */
+    private byte[] createRecordPage(final RecordDataset dataset, final int totalRecords, final int pageSize,
+                                                    final int[] pageRows, final boolean hasNextPage,
+                                                    final RecordSort sort, final RecordStats facets) {
+        final String nextCursor = hasNextPage && pageRows.length > 0
+                ? RecordCursor.after(sort, dataset.getRecord(pageRows[pageRows.length - 1])).encode()
+                : null;
+        return recordPageSerializer.serialize(dataset, countNumberOfPages(totalRecords, pageSize), totalRecords, pageRows, nextCursor, facets);
+    }
+
+    /**
+     * Aggregates the requested facets of a query of a batch
+     *
+     * @param dataset         The dataset of records
+     * @param query           The query
+     * @param candidateRowsOf The shared rows matching the name and range filters of a query
+     * @return The facets of the query, or null when none is requested
+     */
+    private RecordStats createBatchFacets(final RecordDataset dataset, final BatchQuery query,
+                                          final Function<BatchQuery, BitSet> candidateRowsOf) {
+        if (query.facets().isEmpty()) {
+            return null;
         }
+        return createRecordStats(recordProcessingService.aggregate(dataset, candidateRowsOf.apply(query), query.status()), query.facets(), false);
     }
 
     /**
-     * Paginates a list of records
+     * Creates the aggregates returned to the client, keeping the requested facets only
      *
-     * @param recordData  The list of records to paginate
-     * @param pageSize The number of records per page
-     * @param page     The page number
-     * @return The paginated list of records
+     * @param aggregates The aggregates of the filtered records
+     * @param facets The requested facets
+     * @param hasTotalRecords Whether the number of filtered records is returned
+     * @return The aggregates of the filtered records
      */
-    private List<Record> paginateRecords(final List<Record> recordData, final int pageSize, final int page) {
-        return recordProcessingService.getRecordsPage(recordData, pageSize, page);
+    private static RecordStats createRecordStats(final RecordAggregates aggregates, final Set<FacetEnum> facets,
+                                                 final boolean hasTotalRecords) {
+        Map<StatusEnum, Integer> statusCounts = null;
+        if (facets.contains(FacetEnum.STATUS)) {
+            statusCounts = new EnumMap<>(StatusEnum.class);
+            for (StatusEnum status : StatusEnum.values()) {
+                statusCounts.put(status, aggregates.getStatusCount(status));
+            }
+        }
+        DeltaStats deltaStats = null;
+        if (facets.contains(FacetEnum.DELTA)) {
+            final Map<String, Long> percentiles = new LinkedHashMap<>();
+            if (aggregates.getDeltaCount() > 0) {
+                for (int percentile = 0; percentile < RecordAggregates.PERCENTILES.length; percentile++) {
+                    percentiles.put("p" + RecordAggregates.PERCENTILES[percentile], aggregates.getDeltaPercentile(percentile));
+                }
+            }
+            deltaStats = new DeltaStats(aggregates.getDeltaCount(), aggregates.getDeltaSum(),
+                    aggregates.getDeltaMin(), aggregates.getDeltaMax(), percentiles);
+        }
+        return new RecordStats(hasTotalRecords ? aggregates.getRecordCount() : null, statusCounts, deltaStats);
+    }
+
+    /**
+     * Creates the strong ETag of a response. It identifies the dataset by its version and build time,
+     * as versions start over when the service restarts, and the query by a digest of its normalized criteria.
+     * Compressed pages are a different representation of the same page and get their own ETag.
+     *
+     * @param dataset  The dataset of records
+     * @param query    The normalized criteria of the query, with the page requested
+     * @param isGzipped Whether the response is sent gzip compressed
+     * @return The quoted ETag
+     */
+    private static String createETag(final RecordDataset dataset, final String query, final boolean isGzipped) {
+        final byte[] queryDigest;
+        try {
+            queryDigest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return "\"" + Long.toHexString(dataset.getVersion())
+                + "-" + Long.toHexString(dataset.getBuiltAt().toEpochMilli())
+                + "-" + HexFormat.of().formatHex(queryDigest, 0, 12)
+                + (isGzipped ? "-" + GZIP_ENCODING : "") + "\"";
+    }
+
+    /**
+     * Checks whether the client accepts gzip encoded responses
+     *
+     * @param acceptEncoding The Accept-Encoding header, possibly null
+     * @return Whether gzip is accepted
+     */
+    private static boolean isGzipAccepted(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            final String[] parameters = encoding.trim().split(";");
+            if (GZIP_ENCODING.equalsIgnoreCase(parameters[0].trim())) {
+                return parameters.length == 1 || !parameters[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the bitmap of the dataset rows matching the name, range and status filters, and aggregates the requested
+     * facets of the filtered records in a single pass over the rows matching the name and ranges, before the status filter applies
+     *
+     * @param dataset   The dataset of records to filter
+     * @param name      The name to filter by
+     * @param status    The statuses to filter by
+     * @param ranges    The creation date and delta ranges to filter by
+     * @param facets    The requested facets, possibly empty
+     * @param stageTags The tags of the request stages
+     * @return The bitmap of filtered rows, null when no filter applies, with the facets, null when none is requested
+     */
+    private Filter filterRecords(final RecordDataset dataset, final String name, final List<StatusEnum> status,
+                                 final RecordRanges ranges, final Set<FacetEnum> facets, final Tags stageTags) {
+        final BitSet candidateRows = findCandidateRows(dataset, name, ranges);
+        final RecordStats facetStats = facets.isEmpty() ? null : recordMetrics.timeRequestStage(RecordMetrics.AGGREGATE_STAGE, stageTags,
+                () -> createRecordStats(recordProcessingService.aggregate(dataset, candidateRows, status), facets, false));
+        return new Filter(applyStatusFilter(dataset, candidateRows, status), facetStats);
+    }
+
+    /**
+     * Builds the bitmap of the dataset rows matching the name, range and status filters
+     *
+     * @param dataset The dataset of records to filter
+     * @param name    The name to filter by
+     * @param status  The statuses to filter by
+     * @param ranges  The creation date and delta ranges to filter by
+     * @return The bitmap of filtered rows, or null when no filter applies
+     */
+    private BitSet filterRecords(final RecordDataset dataset, final String name, final List<StatusEnum> status,
+                                 final RecordRanges ranges) {
+        return applyStatusFilter(dataset, findCandidateRows(dataset, name, ranges), status);
+    }
+
+    /**
+     * Builds the bitmap of the dataset rows matching the name and range filters, intersecting the rows of the name
+     * with the index spans of the ranges
+     *
+     * @param dataset The dataset of records to filter
+     * @param name    The name to filter by
+     * @param ranges  The creation date and delta ranges to filter by
+     * @return A new bitmap of the matching rows, or null when no name or range filter applies
+     */
+    private BitSet findCandidateRows(final RecordDataset dataset, final String name, final RecordRanges ranges) {
+        final BitSet rangeRows = recordProcessingService.rangeFilter(dataset, ranges);
+        if (StringUtils.isEmpty(name)) {
+            return rangeRows;
+        }
+        final BitSet nameRows = recordProcessingService.nameFilter(dataset, name);
+        if (rangeRows != null) {
+            nameRows.and(rangeRows);
+        }
+        return nameRows;
+    }
+
+    /**
+     * Restricts the rows matching the other filters to the rows matching the status filter
+     *
+     * @param dataset       The dataset of records to filter
+     * @param candidateRows The bitmap of the rows matching the other filters, modified in place, or null when none applies
+     * @param status        The statuses to filter by
+     * @return The bitmap of filtered rows, or null when no filter applies
+     */
+    private BitSet applyStatusFilter(final RecordDataset dataset, final BitSet candidateRows, final List<StatusEnum> status) {
+        BitSet filter = candidateRows;
+        if (null != status && !status.isEmpty()) {
+            final BitSet statusFilter = recordProcessingService.statusFilter(dataset, status);
+            if (filter == null) {
+                filter = statusFilter;
+            } else {
+                filter.and(statusFilter);
+            }
+        }
+        return filter;
     }
 
     /**
@@ -131,4 +568,49 @@ public class RecordController {
     private int countNumberOfPages(int numberOfRecords, int pageSize) {
         return numberOfRecords / pageSize + (numberOfRecords % pageSize == 0 ? 0 : 1);
     }
+
+    /**
+     * The rows matching the filters of a request, with the facets of the filtered records
+     */
+    private record Filter(BitSet rows, RecordStats facets) {
+    }
+
+    /**
+     * The normalized criteria of a query of a batch
+     */
+    private record BatchQuery(String name, List<StatusEnum> status, RecordRanges ranges, RecordSort sort,
+                              Set<FacetEnum> facets, int pageSize, int page, String cursor) {
+
+        static BatchQuery of(final RecordQuery query) {
+            return new BatchQuery(Objects.toString(query.getName(), ""),
+                    query.getStatus() == null ? List.of() : query.getStatus(),
+                    RecordRanges.of(query.getCreatedFrom(), query.getCreatedTo(), query.getDeltaMin(), query.getDeltaMax()),
+                    RecordSort.of(query.getSortBy(), query.getSortOrder()),
+                    query.getFacets() == null || query.getFacets().isEmpty() ? EnumSet.noneOf(FacetEnum.class) : EnumSet.copyOf(query.getFacets()),
+                    Objects.requireNonNullElse(query.getPageSize(), DEFAULT_PAGE_SIZE),
+                    Objects.requireNonNullElse(query.getPage(), 1),
+                    query.getCursor());
+        }
+
+        /**
+         * @return Whether a name, status or range filter applies
+         */
+        boolean isFiltered() {
+            return !name.isEmpty() || !status.isEmpty() || !ranges.isEmpty();
+        }
+
+        /**
+         * @return The normalized name and range filters
+         */
+        List<Object> candidateKey() {
+            return List.of(NameIndex.fold(name), ranges);
+        }
+
+        /**
+         * @return The normalized name, range and status filters
+         */
+        List<Object> filterKey() {
+            return List.of(candidateKey(), status.isEmpty() ? EnumSet.noneOf(StatusEnum.class) : EnumSet.copyOf(status));
+        }
+    }
 }
@@ -0,0 +1,12 @@
+package com.developer.controller.converter;
+
+import com.developer.controller.model.FacetEnum;
+import org.springframework.core.convert.converter.Converter;
+
+
+public class StringToEnumFacetConverter implements Converter<String, FacetEnum> {
+    @Override
+    public FacetEnum convert(String source) {
+            return FacetEnum.valueOf(source.toUpperCase());
+    }
+}
@@ -0,0 +1,33 @@
+package com.developer.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeltaStats {
+
+    @JsonProperty("count")
+    private Integer count;
+
+    @JsonProperty("sum")
+    private Long sum;
+
+    @JsonProperty("min")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long min;
+
+    @JsonProperty("max")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long max;
+
+    @JsonProperty("percentiles")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, Long> percentiles;
+}
@@ -0,0 +1,5 @@
+package com.developer.controller.model;
+
+public enum FacetEnum {
+    STATUS, DELTA;
+}
@@ -1,5 +1,5 @@
 package com.developer.controller.model;
 
 public enum FieldEnum {
-    ID, NAME, CREATEDON;
+    ID, NAME, CREATEDON, STATUS, DELTA;
 }
@@ -1,5 +1,6 @@
 package com.developer.controller.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,4 +21,20 @@ public class RecordPage {
 
     @JsonProperty("items")
     private List<Record> items;
+
+    @JsonProperty("nextCursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    @JsonProperty("facets")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RecordStats facets;
+
+    public RecordPage(final Integer totalPages, final Integer totalRecords, final List<Record> items) {
+        this(totalPages, totalRecords, items, null, null);
+    }
+
+    public RecordPage(final Integer totalPages, final Integer totalRecords, final List<Record> items, final String nextCursor) {
+        this(totalPages, totalRecords, items, nextCursor, null);
+    }
 }
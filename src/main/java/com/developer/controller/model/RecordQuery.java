@@ -0,0 +1,56 @@
+package com.developer.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordQuery {
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("status")
+    private List<StatusEnum> status;
+
+    @JsonProperty("createdFrom")
+    private Instant createdFrom;
+
+    @JsonProperty("createdTo")
+    private Instant createdTo;
+
+    @JsonProperty("deltaMin")
+    private Long deltaMin;
+
+    @JsonProperty("deltaMax")
+    private Long deltaMax;
+
+    @Min(1)
+    @JsonProperty("page")
+    private Integer page;
+
+    @Min(1)
+    @Max(100)
+    @JsonProperty("pageSize")
+    private Integer pageSize;
+
+    @JsonProperty("sortBy")
+    private List<FieldEnum> sortBy;
+
+    @JsonProperty("sortOrder")
+    private List<OrderEnum> sortOrder;
+
+    @JsonProperty("cursor")
+    private String cursor;
+
+    @JsonProperty("facets")
+    private List<FacetEnum> facets;
+}
@@ -0,0 +1,27 @@
+package com.developer.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordStats {
+
+    @JsonProperty("totalRecords")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalRecords;
+
+    @JsonProperty("status")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<StatusEnum, Integer> status;
+
+    @JsonProperty("delta")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private DeltaStats delta;
+}
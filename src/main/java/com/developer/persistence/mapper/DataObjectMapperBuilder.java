@@ -11,6 +11,17 @@ import static com.fasterxml.jackson.databind.SerializationFeature.*;
 
 @UtilityClass
 public class DataObjectMapperBuilder {
+    private static final ObjectMapper SHARED_OBJECT_MAPPER = build();
+
+    /**
+     * Returns the shared object mapper. It is fully configured before publication and never reconfigured,
+     * so it is safe to use concurrently and its serializer and deserializer caches are kept warm across loads.
+     *
+     * @return The shared ObjectMapper
+     */
+    public static ObjectMapper getInstance() {
+        return SHARED_OBJECT_MAPPER;
+    }
 
     public static ObjectMapper build() {
         final ObjectMapper objectMapper = new ObjectMapper()
@@ -0,0 +1,76 @@
+package com.developer.persistence.mapper;
+
+import com.developer.controller.model.Record;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records of a storage file one at a time with the Jackson streaming parser.
+ * Only a single record is bound at any time, so the whole file is never held in memory
+ * and parsing proceeds as the input stream delivers bytes.
+ */
+@UtilityClass
+public class RecordStreamReader {
+    private static final String OUTPUT_FIELD = "output";
+    private static final ObjectReader RECORD_READER = DataObjectMapperBuilder.getInstance().readerFor(Record.class);
+
+    /**
+     * Streams the records of the "output" field of a storage file to a consumer, in file order.
+     * Other fields are skipped, and a single record object is accepted as an array of one record.
+     *
+     * @param input The storage file, closed once read
+     * @param consumer The consumer of every record
+     * @return The number of records read
+     * @throws IOException when the input can not be read or is not a valid storage file
+     */
+    public static int read(final InputStream input, final Consumer<Record> consumer) throws IOException {
+        int count = 0;
+        try (JsonParser parser = RECORD_READER.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a json object at " + parser.currentLocation());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if (!OUTPUT_FIELD.equals(field)) {
+                    parser.skipChildren();
+                } else if (value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        consumer.accept(RECORD_READER.readValue(parser));
+                        count++;
+                    }
+                } else if (value == JsonToken.START_OBJECT) {
+                    consumer.accept(RECORD_READER.readValue(parser));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Streams the records of a newline delimited json segment to a consumer, one record per line, in file order
+     *
+     * @param input The segment file, closed once read
+     * @param consumer The consumer of every record
+     * @return The number of records read
+     * @throws IOException when the input can not be read or a line is not a valid record
+     */
+    public static int readLines(final InputStream input, final Consumer<Record> consumer) throws IOException {
+        int count = 0;
+        try (MappingIterator<Record> records = RECORD_READER.readValues(input)) {
+            while (records.hasNextValue()) {
+                consumer.accept(records.nextValue());
+                count++;
+            }
+        }
+        return count;
+    }
+}
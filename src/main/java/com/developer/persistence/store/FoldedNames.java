@@ -0,0 +1,279 @@
+package com.developer.persistence.store;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The distinct record names case folded once, one byte per char, and stored one after the other in a single array.
+ * Folded names are searched for a folded query with a word-at-a-time scan, eight bytes per step, without allocating per name.
+ * Two chars match ignoring case exactly when their folded values are equal, see {@link NameIndex#fold(String)},
+ * so the search gives the same results as {@link StringUtils#containsIgnoreCase}. Names folding to a char above
+ * Latin-1, and names holding surrogate chars, are kept out of the array and searched with
+ * {@link StringUtils#containsIgnoreCase}.
+ */
+final class FoldedNames {
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101_0101_0101_0101L;
+    private static final long HIGH_BITS = 0x8080_8080_8080_8080L;
+
+    private final String[] nameDictionary;
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final BitSet unfoldedCodes;
+
+    private FoldedNames(final String[] nameDictionary, final byte[] bytes, final int[] offsets, final BitSet unfoldedCodes) {
+        this.nameDictionary = nameDictionary;
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.unfoldedCodes = unfoldedCodes;
+    }
+
+    /**
+     * Folds the names of a dictionary
+     *
+     * @param nameDictionary The distinct names, indexed by dictionary code
+     * @return The folded names
+     */
+    public static FoldedNames of(final String[] nameDictionary) {
+        return extend(null, nameDictionary);
+    }
+
+    /**
+     * Folds the names appended to a dictionary, copying the folded names of the previous dictionary
+     *
+     * @param previous The folded names of the previous dictionary, or null
+     * @param nameDictionary The distinct names, starting with the previous dictionary
+     * @return The folded names
+     */
+    public static FoldedNames extend(final FoldedNames previous, final String[] nameDictionary) {
+        final int previousLength = previous == null ? 0 : previous.offsets.length - 1;
+        final int previousBytes = previous == null ? 0 : previous.offsets[previousLength];
+        final int[] offsets = new int[nameDictionary.length + 1];
+        final BitSet unfoldedCodes = previous == null ? new BitSet() : (BitSet) previous.unfoldedCodes.clone();
+        if (previous != null) {
+            System.arraycopy(previous.offsets, 0, offsets, 0, previousLength + 1);
+        }
+        long length = previousBytes;
+        for (int code = previousLength; code < nameDictionary.length; code++) {
+            if (isFoldable(nameDictionary[code])) {
+                length += nameDictionary[code].length();
+            } else {
+                unfoldedCodes.set(code);
+            }
+        }
+        if (length > Integer.MAX_VALUE - Long.BYTES) {
+            throw new IllegalStateException("The folded names exceed " + (Integer.MAX_VALUE - Long.BYTES) + " bytes");
+        }
+        // Trailing padding lets the scan read a whole word at any position of the last name
+        final byte[] bytes = new byte[(int) length + Long.BYTES];
+        if (previous != null) {
+            System.arraycopy(previous.bytes, 0, bytes, 0, previousBytes);
+        }
+        int position = previousBytes;
+        for (int code = previousLength; code < nameDictionary.length; code++) {
+            if (!unfoldedCodes.get(code)) {
+                final String name = nameDictionary[code];
+                for (int index = 0; index < name.length(); index++) {
+                    bytes[position++] = (byte) NameIndex.fold(name.charAt(index));
+                }
+            }
+            offsets[code + 1] = position;
+        }
+        return new FoldedNames(nameDictionary, bytes, offsets, unfoldedCodes);
+    }
+
+    /**
+     * Folds a query once for every search
+     *
+     * @param query The query, not null
+     * @return The folded query
+     */
+    public static Needle needle(final String query) {
+        return new Needle(query);
+    }
+
+    /**
+     * @return The approximate heap size of the folded names in bytes
+     */
+    public long estimateHeapBytes() {
+        return MemoryEstimates.ARRAY_HEADER_BYTES * 3 + bytes.length + (long) Integer.BYTES * offsets.length + unfoldedCodes.size() / 8;
+    }
+
+    /**
+     * Checks whether a name contains the query, ignoring case
+     *
+     * @param code The dictionary code of the name
+     * @param needle The folded query
+     * @return Whether the name contains the query
+     */
+    public boolean contains(final int code, final Needle needle) {
+        if (unfoldedCodes.get(code) || needle.hasSurrogates) {
+            return needle.isContainedIn(nameDictionary[code]);
+        }
+        return needle.bytes != null && indexOf(needle.bytes, offsets[code], offsets[code + 1]) >= 0;
+    }
+
+    /**
+     * Finds the codes of a range of codes whose name contains the query, ignoring case,
+     * scanning the folded names of the range as a single run of bytes
+     *
+     * @param needle The folded query
+     * @param fromCode The first code of the range
+     * @param toCode The code following the last one of the range
+     * @return The matching codes, in ascending order
+     */
+    public int[] findCodes(final Needle needle, final int fromCode, final int toCode) {
+        final int[] matches = new int[Math.max(0, toCode - fromCode)];
+        int matchCount = 0;
+        if (needle.query.isEmpty()) {
+            for (int code = fromCode; code < toCode; code++) {
+                matches[matchCount++] = code;
+            }
+            return matches;
+        }
+        if (needle.bytes == null) {
+            // Folded names only hold Latin-1 chars, a query folding to another char can only be in unfolded names
+            for (int code = needle.hasSurrogates ? fromCode : unfoldedCodes.nextSetBit(fromCode);
+                 code >= 0 && code < toCode;
+                 code = needle.hasSurrogates ? code + 1 : unfoldedCodes.nextSetBit(code + 1)) {
+                if (needle.isContainedIn(nameDictionary[code])) {
+                    matches[matchCount++] = code;
+                }
+            }
+            return Arrays.copyOf(matches, matchCount);
+        }
+        final int end = offsets[toCode];
+        int code = fromCode;
+        int position = offsets[fromCode];
+        while (position < end) {
+            final int match = indexOf(needle.bytes, position, end);
+            if (match < 0) {
+                break;
+            }
+            // Matches are found in order, the codes skipped on the way are checked when they are not folded
+            while (offsets[code + 1] <= match) {
+                if (unfoldedCodes.get(code) && needle.isContainedIn(nameDictionary[code])) {
+                    matches[matchCount++] = code;
+                }
+                code++;
+            }
+            if (match + needle.bytes.length <= offsets[code + 1]) {
+                matches[matchCount++] = code;
+                code++;
+                position = offsets[code];
+            } else {
+                // The match spans the next name, look for one starting at the next byte
+                position = match + 1;
+            }
+        }
+        for (int unfoldedCode = unfoldedCodes.nextSetBit(code); unfoldedCode >= 0 && unfoldedCode < toCode;
+             unfoldedCode = unfoldedCodes.nextSetBit(unfoldedCode + 1)) {
+            if (needle.isContainedIn(nameDictionary[unfoldedCode])) {
+                matches[matchCount++] = unfoldedCode;
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * Finds the first occurrence of the folded query in a range of the folded names.
+     * Every word compares eight candidate positions with the first and the last byte of the query,
+     * and only the positions flagged for both are compared byte by byte.
+     *
+     * @param needle The folded query
+     * @param from The first byte of the range
+     * @param to The byte following the last one of the range
+     * @return The position of the occurrence, or -1
+     */
+    int indexOf(final byte[] needle, final int from, final int to) {
+        final int needleLength = needle.length;
+        if (needleLength == 0) {
+            return from;
+        }
+        final int lastStart = to - needleLength;
+        final long first = LOW_BITS * (needle[0] & 0xFF);
+        final long last = LOW_BITS * (needle[needleLength - 1] & 0xFF);
+        for (int start = from; start <= lastStart; start += Long.BYTES) {
+            final long firstBytes = (long) LONG_VIEW.get(bytes, start) ^ first;
+            final long lastBytes = (long) LONG_VIEW.get(bytes, start + needleLength - 1) ^ last;
+            long candidates = zeroBytes(firstBytes | lastBytes);
+            while (candidates != 0) {
+                final int candidate = start + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                if (candidate > lastStart) {
+                    return -1;
+                }
+                if (isMatch(needle, candidate)) {
+                    return candidate;
+                }
+                candidates &= candidates - 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isMatch(final byte[] needle, final int start) {
+        for (int index = 0; index < needle.length; index++) {
+            if (bytes[start + index] != needle[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the high bit of the zero bytes of a word. A borrow may also flag a byte of value 1 above a zero byte,
+     * which the byte comparison of the candidate rejects.
+     */
+    private static long zeroBytes(final long word) {
+        return (word - LOW_BITS) & ~word & HIGH_BITS;
+    }
+
+    /**
+     * Whether every char of a name folds to a Latin-1 char, so it can be stored as one byte
+     */
+    private static boolean isFoldable(final String name) {
+        for (int index = 0; index < name.length(); index++) {
+            final char value = name.charAt(index);
+            if (Character.isSurrogate(value) || NameIndex.fold(value) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A query folded once. Queries folding to Latin-1 are searched in the folded names, the others can only
+     * be contained in unfolded names, unless they hold surrogate chars, and are searched with {@link StringUtils#containsIgnoreCase}.
+     */
+    static final class Needle {
+        private final String query;
+        private final byte[] bytes;
+        private final boolean hasSurrogates;
+
+        private Needle(final String query) {
+            this.query = query;
+            this.hasSurrogates = query.chars().anyMatch(value -> Character.isSurrogate((char) value));
+            this.bytes = hasSurrogates || !isFoldable(query) ? null : new byte[query.length()];
+            if (bytes != null) {
+                for (int index = 0; index < bytes.length; index++) {
+                    bytes[index] = (byte) NameIndex.fold(query.charAt(index));
+                }
+            }
+        }
+
+        /**
+         * Checks whether a name outside of the folded names contains the query, ignoring case
+         *
+         * @param name The name, possibly null
+         * @return Whether the name contains the query
+         */
+        public boolean isContainedIn(final String name) {
+            return StringUtils.containsIgnoreCase(name, query);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.developer.persistence.store;
+
+/**
+ * Approximate object sizes of a 64-bit JVM with compressed references, used to estimate the heap footprint of a dataset
+ */
+final class MemoryEstimates {
+    static final long ARRAY_HEADER_BYTES = 16;
+    static final long MAP_ENTRY_BYTES = 32;
+    static final long BOXED_LONG_BYTES = 16;
+    static final long STRING_BYTES = 24 + ARRAY_HEADER_BYTES;
+
+    private MemoryEstimates() {
+    }
+
+    /**
+     * @param values The strings of a dictionary
+     * @return The approximate heap size of the array and of its strings, assuming one byte per char
+     */
+    static long dictionaryBytes(final String[] values) {
+        long bytes = ARRAY_HEADER_BYTES + (long) Integer.BYTES * values.length;
+        for (String value : values) {
+            bytes += value == null ? 0 : STRING_BYTES + value.length();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,352 @@
+package com.developer.persistence.store;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Trigram inverted index over the distinct record names.
+ * Names are case folded one char at a time, so two chars fold to the same value exactly when
+ * {@link StringUtils#containsIgnoreCase} considers them equal, and every name containing the query
+ * contains all the query trigrams. The posting lists only select candidates, which are then verified
+ * against the {@link FoldedNames}, so results are identical to a full scan with {@link StringUtils#containsIgnoreCase}.
+ */
+public class NameIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int[] EMPTY = new int[0];
+    private static final int SCAN_CHUNK_CODES = 16_384;
+
+    private final String[] nameDictionary;
+    private final FoldedNames foldedNames;
+    private final Map<Long, int[]> postings;
+    private final int[] unindexedCodes;
+    private final int[] rowOffsets;
+    private final int[] rowsByCode;
+
+    private NameIndex(final String[] nameDictionary, final FoldedNames foldedNames, final Map<Long, int[]> postings,
+                      final int[] unindexedCodes, final int[] rowOffsets, final int[] rowsByCode) {
+        this.nameDictionary = nameDictionary;
+        this.foldedNames = foldedNames;
+        this.postings = postings;
+        this.unindexedCodes = unindexedCodes;
+        this.rowOffsets = rowOffsets;
+        this.rowsByCode = rowsByCode;
+    }
+
+    /**
+     * Builds the trigram posting lists of the name dictionary and the list of rows of every name
+     *
+     * @param nameDictionary The distinct names, indexed by dictionary code
+     * @param nameCodes The name code of every row, -1 for null names
+     * @return The name index
+     */
+    public static NameIndex build(final String[] nameDictionary, final int[] nameCodes) {
+        final long[][] codeGrams = new long[nameDictionary.length][];
+        final Map<Long, int[]> postingSizes = new HashMap<>();
+        int unindexedCount = 0;
+        for (int code = 0; code < nameDictionary.length; code++) {
+            codeGrams[code] = grams(nameDictionary[code]);
+            if (codeGrams[code] == null) {
+                unindexedCount++;
+                continue;
+            }
+            for (long gram : codeGrams[code]) {
+                postingSizes.computeIfAbsent(gram, key -> new int[1])[0]++;
+            }
+        }
+
+        final Map<Long, int[]> postings = new HashMap<>(postingSizes.size() * 2);
+        final Map<Long, int[]> postingFill = new HashMap<>(postingSizes.size() * 2);
+        postingSizes.forEach((gram, size) -> {
+            postings.put(gram, new int[size[0]]);
+            postingFill.put(gram, new int[1]);
+        });
+        final int[] unindexedCodes = new int[unindexedCount];
+        unindexedCount = 0;
+        for (int code = 0; code < nameDictionary.length; code++) {
+            if (codeGrams[code] == null) {
+                unindexedCodes[unindexedCount++] = code;
+                continue;
+            }
+            for (long gram : codeGrams[code]) {
+                postings.get(gram)[postingFill.get(gram)[0]++] = code;
+            }
+        }
+
+        return withRows(nameDictionary, FoldedNames.of(nameDictionary), postings, unindexedCodes, nameCodes);
+    }
+
+    /**
+     * Extends a name index after names were appended to the dictionary, without rebuilding the existing postings.
+     * New names get higher codes than the previous ones, so their codes are appended at the end of the posting
+     * lists, which stay sorted. The list of rows of every name is rebuilt.
+     *
+     * @param previous The name index of the previous dictionary
+     * @param nameDictionary The distinct names, starting with the previous dictionary
+     * @param nameCodes The name code of every row, -1 for null names
+     * @return The name index
+     */
+    public static NameIndex extend(final NameIndex previous, final String[] nameDictionary, final int[] nameCodes) {
+        final int previousLength = previous.nameDictionary.length;
+        if (previousLength == nameDictionary.length) {
+            return withRows(nameDictionary, previous.foldedNames, previous.postings, previous.unindexedCodes, nameCodes);
+        }
+        final Map<Long, int[]> postings = new HashMap<>(previous.postings);
+        final Map<Long, Integer> appendedSizes = new HashMap<>();
+        final long[][] codeGrams = new long[nameDictionary.length - previousLength][];
+        int unindexedCount = previous.unindexedCodes.length;
+        for (int code = previousLength; code < nameDictionary.length; code++) {
+            codeGrams[code - previousLength] = grams(nameDictionary[code]);
+            if (codeGrams[code - previousLength] == null) {
+                unindexedCount++;
+                continue;
+            }
+            for (long gram : codeGrams[code - previousLength]) {
+                appendedSizes.merge(gram, 1, Integer::sum);
+            }
+        }
+        appendedSizes.forEach((gram, appendedSize) -> {
+            final int[] posting = postings.getOrDefault(gram, EMPTY);
+            postings.put(gram, Arrays.copyOf(posting, posting.length + appendedSize));
+        });
+        final Map<Long, int[]> postingFill = new HashMap<>(appendedSizes.size() * 2);
+        appendedSizes.forEach((gram, appendedSize) -> postingFill.put(gram, new int[]{postings.get(gram).length - appendedSize}));
+        final int[] unindexedCodes = Arrays.copyOf(previous.unindexedCodes, unindexedCount);
+        unindexedCount = previous.unindexedCodes.length;
+        for (int code = previousLength; code < nameDictionary.length; code++) {
+            if (codeGrams[code - previousLength] == null) {
+                unindexedCodes[unindexedCount++] = code;
+                continue;
+            }
+            for (long gram : codeGrams[code - previousLength]) {
+                postings.get(gram)[postingFill.get(gram)[0]++] = code;
+            }
+        }
+        return withRows(nameDictionary, FoldedNames.extend(previous.foldedNames, nameDictionary), postings, unindexedCodes, nameCodes);
+    }
+
+    /**
+     * Builds the list of rows of every name, in row order, and the name index holding it
+     */
+    private static NameIndex withRows(final String[] nameDictionary, final FoldedNames foldedNames, final Map<Long, int[]> postings,
+                                      final int[] unindexedCodes, final int[] nameCodes) {
+        final int[] rowOffsets = new int[nameDictionary.length + 1];
+        for (int nameCode : nameCodes) {
+            if (nameCode >= 0) {
+                rowOffsets[nameCode + 1]++;
+            }
+        }
+        for (int code = 0; code < nameDictionary.length; code++) {
+            rowOffsets[code + 1] += rowOffsets[code];
+        }
+        final int[] rowsByCode = new int[rowOffsets[nameDictionary.length]];
+        final int[] rowFill = Arrays.copyOf(rowOffsets, nameDictionary.length);
+        for (int row = 0; row < nameCodes.length; row++) {
+            if (nameCodes[row] >= 0) {
+                rowsByCode[rowFill[nameCodes[row]]++] = row;
+            }
+        }
+        return new NameIndex(nameDictionary, foldedNames, postings, unindexedCodes, rowOffsets, rowsByCode);
+    }
+
+    /**
+     * @return The approximate heap size of the folded names, of the posting lists and of the rows of every name in bytes,
+     * the names excluded
+     */
+    public long estimateHeapBytes() {
+        long bytes = foldedNames.estimateHeapBytes() + MemoryEstimates.ARRAY_HEADER_BYTES * 3 + (long) Integer.BYTES * (unindexedCodes.length + rowOffsets.length + rowsByCode.length);
+        for (int[] posting : postings.values()) {
+            bytes += MemoryEstimates.MAP_ENTRY_BYTES + MemoryEstimates.BOXED_LONG_BYTES + MemoryEstimates.ARRAY_HEADER_BYTES + (long) Integer.BYTES * posting.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return The number of distinct names
+     */
+    public int nameCount() {
+        return nameDictionary.length;
+    }
+
+    /**
+     * Finds the rows whose name contains the query, ignoring case
+     *
+     * @param name The query, not empty
+     * @param size The number of rows of the dataset
+     * @return A new bitmap of the matching row positions
+     */
+    public BitSet findRows(final String name, final int size) {
+        return findRows(name, size, false);
+    }
+
+    /**
+     * Finds the rows whose name contains the query, ignoring case, like {@link #findRows(String, int)}
+     *
+     * @param name The query, not empty
+     * @param size The number of rows of the dataset
+     * @param isParallel Whether the candidate names are verified with a parallel stream
+     * @return A new bitmap of the matching row positions
+     */
+    public BitSet findRows(final String name, final int size, final boolean isParallel) {
+        final BitSet rows = new BitSet(size);
+        for (int code : findCodes(name, isParallel)) {
+            for (int position = rowOffsets[code]; position < rowOffsets[code + 1]; position++) {
+                rows.set(rowsByCode[position]);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Finds the dictionary codes of the names containing the query, ignoring case.
+     * Queries shorter than a trigram are matched against the whole dictionary.
+     *
+     * @param name The query, not empty
+     * @return The matching dictionary codes, in ascending order
+     */
+    public int[] findCodes(final String name) {
+        return findCodes(name, false);
+    }
+
+    private int[] findCodes(final String name, final boolean isParallel) {
+        final long[] queryGrams = grams(name);
+        if (queryGrams == null || queryGrams.length == 0) {
+            return verify(null, name, isParallel);
+        }
+        final int[][] queryPostings = new int[queryGrams.length][];
+        for (int position = 0; position < queryGrams.length; position++) {
+            queryPostings[position] = postings.getOrDefault(queryGrams[position], EMPTY);
+        }
+        Arrays.sort(queryPostings, Comparator.comparingInt(posting -> posting.length));
+        int[] candidates = queryPostings[0];
+        for (int position = 1; position < queryPostings.length && candidates.length > 0; position++) {
+            candidates = intersect(candidates, queryPostings[position]);
+        }
+        return verify(candidates, name, isParallel);
+    }
+
+    /**
+     * Verifies the candidate codes, plus the names that could not be indexed, against the folded names.
+     * Without candidates the folded names are scanned as a whole, in chunks of codes when in parallel.
+     */
+    private int[] verify(final int[] candidates, final String name, final boolean isParallel) {
+        final FoldedNames.Needle needle = FoldedNames.needle(name);
+        if (candidates == null) {
+            if (!isParallel) {
+                return foldedNames.findCodes(needle, 0, nameDictionary.length);
+            }
+            final int chunks = (nameDictionary.length + SCAN_CHUNK_CODES - 1) / SCAN_CHUNK_CODES;
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> foldedNames.findCodes(needle, chunk * SCAN_CHUNK_CODES,
+                            Math.min(nameDictionary.length, (chunk + 1) * SCAN_CHUNK_CODES)))
+                    .flatMapToInt(Arrays::stream)
+                    .toArray();
+        }
+        final int candidateCount = candidates.length + unindexedCodes.length;
+        final int[] matchingCodes;
+        if (isParallel) {
+            // The stream is ordered, so the codes keep the order of the candidates
+            matchingCodes = IntStream.range(0, candidateCount).parallel()
+                    .map(position -> candidateCode(candidates, position))
+                    .filter(code -> foldedNames.contains(code, needle))
+                    .toArray();
+        } else {
+            final int[] matches = new int[candidateCount];
+            int matchCount = 0;
+            for (int position = 0; position < candidateCount; position++) {
+                final int code = candidateCode(candidates, position);
+                if (foldedNames.contains(code, needle)) {
+                    matches[matchCount++] = code;
+                }
+            }
+            matchingCodes = Arrays.copyOf(matches, matchCount);
+        }
+        if (unindexedCodes.length > 0) {
+            Arrays.sort(matchingCodes);
+        }
+        return matchingCodes;
+    }
+
+    /**
+     * Returns the code of a candidate position, the unindexed codes following the candidates
+     */
+    private int candidateCode(final int[] candidates, final int position) {
+        return position < candidates.length ? candidates[position] : unindexedCodes[position - candidates.length];
+    }
+
+    private static int[] intersect(final int[] first, final int[] second) {
+        final int[] intersection = new int[Math.min(first.length, second.length)];
+        int count = 0;
+        int firstPosition = 0;
+        int secondPosition = 0;
+        while (firstPosition < first.length && secondPosition < second.length) {
+            if (first[firstPosition] < second[secondPosition]) {
+                firstPosition++;
+            } else if (first[firstPosition] > second[secondPosition]) {
+                secondPosition++;
+            } else {
+                intersection[count++] = first[firstPosition];
+                firstPosition++;
+                secondPosition++;
+            }
+        }
+        return Arrays.copyOf(intersection, count);
+    }
+
+    /**
+     * Returns the distinct sorted trigrams of the case folded value,
+     * or null when the value holds surrogate chars, whose case folding is not done one char at a time
+     */
+    private static long[] grams(final String value) {
+        final int length = value.length();
+        for (int position = 0; position < length; position++) {
+            if (Character.isSurrogate(value.charAt(position))) {
+                return null;
+            }
+        }
+        if (length < GRAM_LENGTH) {
+            return new long[0];
+        }
+        final long[] grams = new long[length - GRAM_LENGTH + 1];
+        long gram = ((long) fold(value.charAt(0)) << 16) | fold(value.charAt(1));
+        for (int position = GRAM_LENGTH - 1; position < length; position++) {
+            gram = ((gram << 16) | fold(value.charAt(position))) & 0xFFFF_FFFF_FFFFL;
+            grams[position - GRAM_LENGTH + 1] = gram;
+        }
+        Arrays.sort(grams);
+        int distinctCount = 0;
+        for (int position = 0; position < grams.length; position++) {
+            if (position == 0 || grams[position] != grams[distinctCount - 1]) {
+                grams[distinctCount++] = grams[position];
+            }
+        }
+        return Arrays.copyOf(grams, distinctCount);
+    }
+
+    /**
+     * Folds every char of a value the way String.regionMatches compares chars ignoring case.
+     * Two queries with the same folded value match exactly the same names.
+     *
+     * @param value The value to fold
+     * @return The folded value
+     */
+    public static String fold(final String value) {
+        final char[] folded = new char[value.length()];
+        for (int position = 0; position < folded.length; position++) {
+            folded[position] = fold(value.charAt(position));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Folds a char the way String.regionMatches compares chars ignoring case
+     */
+    static char fold(final char value) {
+        return Character.toLowerCase(Character.toUpperCase(value));
+    }
+}
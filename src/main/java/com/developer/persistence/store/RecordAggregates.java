@@ -0,0 +1,198 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.StatusEnum;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Record counts by status and aggregates of the deltas of a set of records: count, sum, minimum, maximum
+ * and nearest-rank percentiles. Records without status are not counted in any status, records without delta
+ * are left out of the delta aggregates, and the sum wraps around like a long addition when it overflows.
+ */
+public final class RecordAggregates {
+    /**
+     * The percentiles of the deltas, in ascending order
+     */
+    public static final int[] PERCENTILES = {50, 90, 95, 99};
+
+    private static final StatusEnum[] STATUS_VALUES = StatusEnum.values();
+
+    private final int recordCount;
+    private final int[] statusCounts;
+    private final int deltaCount;
+    private final long deltaSum;
+    private final long deltaMin;
+    private final long deltaMax;
+    private final long[] deltaPercentiles;
+
+    private RecordAggregates(final int recordCount, final int[] statusCounts, final int deltaCount, final long deltaSum,
+                             final long deltaMin, final long deltaMax, final long[] deltaPercentiles) {
+        this.recordCount = recordCount;
+        this.statusCounts = statusCounts;
+        this.deltaCount = deltaCount;
+        this.deltaSum = deltaSum;
+        this.deltaMin = deltaMin;
+        this.deltaMax = deltaMax;
+        this.deltaPercentiles = deltaPercentiles;
+    }
+
+    /**
+     * Aggregates every record of a dataset. Status counts are the cardinalities of the status bitmaps,
+     * and the percentiles are read from the delta sort index, where records without delta come first.
+     *
+     * @param dataset The dataset of records, whose indexes are built
+     * @return The aggregates of the dataset
+     */
+    static RecordAggregates of(final RecordDataset dataset) {
+        final int[] statusCounts = new int[STATUS_VALUES.length];
+        for (StatusEnum status : STATUS_VALUES) {
+            statusCounts[status.ordinal()] = dataset.getStatusIndex(status).cardinality();
+        }
+        int deltaCount = 0;
+        long deltaSum = 0;
+        long deltaMin = Long.MAX_VALUE;
+        long deltaMax = Long.MIN_VALUE;
+        for (int row = 0; row < dataset.size(); row++) {
+            if (dataset.hasDelta(row)) {
+                final long delta = dataset.getDeltaValue(row);
+                deltaCount++;
+                deltaSum += delta;
+                deltaMin = Math.min(deltaMin, delta);
+                deltaMax = Math.max(deltaMax, delta);
+            }
+        }
+        final SortIndex deltaIndex = dataset.getSortIndex(FieldEnum.DELTA);
+        final int firstDeltaPosition = dataset.size() - deltaCount;
+        final long[] deltaPercentiles = new long[deltaCount == 0 ? 0 : PERCENTILES.length];
+        for (int percentile = 0; percentile < deltaPercentiles.length; percentile++) {
+            deltaPercentiles[percentile] = dataset.getDeltaValue(
+                    deltaIndex.rowAt(firstDeltaPosition + percentileIndex(PERCENTILES[percentile], deltaCount)));
+        }
+        return new RecordAggregates(dataset.size(), statusCounts, deltaCount, deltaSum, deltaMin, deltaMax, deltaPercentiles);
+    }
+
+    /**
+     * Aggregates the records matching a status filter and other filters in a single pass over the rows matching the other filters.
+     * Status counts cover every row matching the other filters, whatever their status, so they give the number of records
+     * each status would match. The record count and the delta aggregates cover the rows matching every filter.
+     * Without filter, the aggregates computed with the dataset are returned.
+     *
+     * @param dataset The dataset of records
+     * @param candidateRows The bitmap of the rows matching the filters other than the status filter, such as the name,
+     *                      or null when none applies
+     * @param statuses The statuses to filter by, possibly null or empty
+     * @return The aggregates of the filtered records
+     */
+    public static RecordAggregates of(final RecordDataset dataset, final BitSet candidateRows, final Collection<StatusEnum> statuses) {
+        final boolean isStatusFiltered = statuses != null && !statuses.isEmpty();
+        if (candidateRows == null && !isStatusFiltered) {
+            return dataset.getAggregates();
+        }
+        final boolean[] isMatchingStatus = new boolean[STATUS_VALUES.length];
+        if (isStatusFiltered) {
+            statuses.forEach(status -> isMatchingStatus[status.ordinal()] = true);
+        }
+        final BitSet rows;
+        final int[] statusCounts;
+        if (candidateRows == null) {
+            // Every status count is already known, only the rows of the filtered statuses are visited
+            rows = new BitSet(dataset.size());
+            statuses.forEach(status -> rows.or(dataset.getStatusIndex(status)));
+            statusCounts = dataset.getAggregates().statusCounts;
+        } else {
+            rows = candidateRows;
+            statusCounts = new int[STATUS_VALUES.length];
+        }
+
+        final long[] deltas = new long[rows.cardinality()];
+        int recordCount = 0;
+        int deltaCount = 0;
+        long deltaSum = 0;
+        long deltaMin = Long.MAX_VALUE;
+        long deltaMax = Long.MIN_VALUE;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            final int status = dataset.getStatusOrdinal(row);
+            if (candidateRows != null && status >= 0) {
+                statusCounts[status]++;
+            }
+            if (isStatusFiltered && (status < 0 || !isMatchingStatus[status])) {
+                continue;
+            }
+            recordCount++;
+            if (dataset.hasDelta(row)) {
+                final long delta = dataset.getDeltaValue(row);
+                deltas[deltaCount++] = delta;
+                deltaSum += delta;
+                deltaMin = Math.min(deltaMin, delta);
+                deltaMax = Math.max(deltaMax, delta);
+            }
+        }
+        Arrays.sort(deltas, 0, deltaCount);
+        final long[] deltaPercentiles = new long[deltaCount == 0 ? 0 : PERCENTILES.length];
+        for (int percentile = 0; percentile < deltaPercentiles.length; percentile++) {
+            deltaPercentiles[percentile] = deltas[percentileIndex(PERCENTILES[percentile], deltaCount)];
+        }
+        return new RecordAggregates(recordCount, statusCounts, deltaCount, deltaSum, deltaMin, deltaMax, deltaPercentiles);
+    }
+
+    /**
+     * Returns the zero based index of the nearest-rank percentile of a number of sorted values
+     */
+    private static int percentileIndex(final int percentile, final int count) {
+        return (int) Math.max(0, ((long) percentile * count + 99) / 100 - 1);
+    }
+
+    /**
+     * @return The number of aggregated records
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @param status The record status
+     * @return The number of records having the status
+     */
+    public int getStatusCount(final StatusEnum status) {
+        return statusCounts[status.ordinal()];
+    }
+
+    /**
+     * @return The number of records having a delta
+     */
+    public int getDeltaCount() {
+        return deltaCount;
+    }
+
+    /**
+     * @return The sum of the deltas, 0 when no record has a delta
+     */
+    public long getDeltaSum() {
+        return deltaSum;
+    }
+
+    /**
+     * @return The smallest delta, or null when no record has a delta
+     */
+    public Long getDeltaMin() {
+        return deltaCount == 0 ? null : deltaMin;
+    }
+
+    /**
+     * @return The largest delta, or null when no record has a delta
+     */
+    public Long getDeltaMax() {
+        return deltaCount == 0 ? null : deltaMax;
+    }
+
+    /**
+     * @param percentile The position of the percentile in {@link #PERCENTILES}
+     * @return The delta percentile, or null when no record has a delta
+     */
+    public Long getDeltaPercentile(final int percentile) {
+        return deltaCount == 0 ? null : deltaPercentiles[percentile];
+    }
+}
@@ -0,0 +1,215 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset pagination cursor holding the sort criteria and the (sort keys, id) of the last returned record.
+ * The cursor does not depend on row positions, so it can be resumed on a newer dataset version.
+ */
+public class RecordCursor {
+    private static final byte SINGLE_FIELD_FORMAT_VERSION = 1;
+    private static final byte FORMAT_VERSION = 2;
+
+    private final RecordSort sort;
+    private final Object[] keys;
+    private final long id;
+
+    private RecordCursor(final RecordSort sort, final Object[] keys, final long id) {
+        this.sort = sort;
+        this.keys = keys;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor resuming after a record
+     *
+     * @param sort The sort criteria
+     * @param record The last returned record
+     * @return The cursor
+     */
+    public static RecordCursor after(final RecordSort sort, final Record record) {
+        final Object[] keys = new Object[sort.getFields().size()];
+        for (int position = 0; position < keys.length; position++) {
+            keys[position] = switch (sort.getFields().get(position)) {
+                case ID -> record.getId();
+                case NAME -> record.getName();
+                case CREATEDON -> record.getCreatedOn();
+                case STATUS -> record.getStatus();
+                case DELTA -> record.getDelta();
+            };
+        }
+        return new RecordCursor(sort, keys, record.getId());
+    }
+
+    /**
+     * Decodes an opaque cursor token. Tokens of a single sort field written before composite sorts are still accepted.
+     *
+     * @param token The URL safe Base64 token
+     * @return The cursor
+     * @throws IllegalArgumentException when the token is not a valid cursor
+     */
+    public static RecordCursor decode(final String token) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            final byte version = input.readByte();
+            if (version != FORMAT_VERSION && version != SINGLE_FIELD_FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported cursor version");
+            }
+            final int fieldCount = version == FORMAT_VERSION ? input.readUnsignedByte() : 1;
+            if (fieldCount == 0) {
+                throw new IllegalArgumentException("Missing cursor sort field");
+            }
+            final List<FieldEnum> fields = new ArrayList<>(fieldCount);
+            final List<OrderEnum> orders = new ArrayList<>(fieldCount);
+            final Object[] keys = new Object[fieldCount];
+            for (int position = 0; position < fieldCount; position++) {
+                final FieldEnum field = FieldEnum.valueOf(input.readUTF());
+                fields.add(field);
+                orders.add(OrderEnum.valueOf(input.readUTF()));
+                keys[position] = switch (field) {
+                    case ID -> input.readLong();
+                    case NAME -> input.readBoolean() ? input.readUTF() : null;
+                    case CREATEDON -> Instant.ofEpochSecond(input.readLong(), input.readInt());
+                    case STATUS -> input.readBoolean() ? StatusEnum.valueOf(input.readUTF()) : null;
+                    case DELTA -> input.readBoolean() ? input.readLong() : null;
+                };
+            }
+            final RecordSort sort = RecordSort.of(fields, orders);
+            if (sort.getFields().size() != fieldCount) {
+                throw new IllegalArgumentException("Repeated cursor sort field");
+            }
+            return new RecordCursor(sort, keys, input.readLong());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * @return The opaque URL safe Base64 token of the cursor
+     */
+    public String encode() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(FORMAT_VERSION);
+            output.writeByte(keys.length);
+            for (int position = 0; position < keys.length; position++) {
+                final Object key = keys[position];
+                output.writeUTF(sort.getFields().get(position).name());
+                output.writeUTF(sort.getOrders().get(position).name());
+                switch (sort.getFields().get(position)) {
+                    case ID -> output.writeLong((Long) key);
+                    case NAME -> {
+                        output.writeBoolean(key != null);
+                        if (key != null) {
+                            output.writeUTF((String) key);
+                        }
+                    }
+                    case CREATEDON -> {
+                        output.writeLong(((Instant) key).getEpochSecond());
+                        output.writeInt(((Instant) key).getNano());
+                    }
+                    case STATUS -> {
+                        output.writeBoolean(key != null);
+                        if (key != null) {
+                            output.writeUTF(((StatusEnum) key).name());
+                        }
+                    }
+                    case DELTA -> {
+                        output.writeBoolean(key != null);
+                        if (key != null) {
+                            output.writeLong((Long) key);
+                        }
+                    }
+                }
+            }
+            output.writeLong(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @return The sort criteria of the cursor
+     */
+    public RecordSort getSort() {
+        return sort;
+    }
+
+    /**
+     * Seeks the position following the cursor record in the sort index of the dataset, by binary search.
+     * Equal keys are ordered by load position, so when the cursor record is no longer in the dataset
+     * the walk resumes at the first record with the same keys.
+     *
+     * @param dataset The dataset of records
+     * @return The zero based position, in the cursor order, of the first record to return
+     */
+    public int resumePosition(final RecordDataset dataset) {
+        final SortIndex sortIndex = dataset.getSortIndex(sort);
+        final int size = sortIndex.size();
+        final int keyStart = sortIndex.partitionPoint(row -> compareKeys(dataset, row) < 0, 0, size);
+        final int keyEnd = sortIndex.partitionPoint(row -> compareKeys(dataset, row) <= 0, keyStart, size);
+
+        int resume = keyStart;
+        final SortIndex idIndex = dataset.getSortIndex(FieldEnum.ID);
+        final int idPosition = idIndex.partitionPoint(row -> dataset.getId(row) < id, 0, size);
+        if (idPosition < size && dataset.getId(idIndex.rowAt(idPosition)) == id) {
+            final int cursorRow = idIndex.rowAt(idPosition);
+            if (compareKeys(dataset, cursorRow) == 0) {
+                resume = sortIndex.partitionPoint(row -> row < cursorRow, keyStart, keyEnd) + 1;
+            }
+        }
+        return sort.getOrder() == OrderEnum.ASC ? resume : (size - keyEnd) + (resume - keyStart);
+    }
+
+    /**
+     * Compares the sort keys of a row with the cursor keys, consistently with the ascending order of the sort index:
+     * fields whose order differs from the order of the first field are compared in reverse
+     */
+    private int compareKeys(final RecordDataset dataset, final int row) {
+        for (int position = 0; position < keys.length; position++) {
+            final int comparison = compareKey(dataset, row, sort.getFields().get(position), keys[position]);
+            if (comparison != 0) {
+                return sort.getOrders().get(position) == sort.getOrder() ? comparison : -comparison;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareKey(final RecordDataset dataset, final int row, final FieldEnum field, final Object key) {
+        return switch (field) {
+            case ID -> Long.compare(dataset.getId(row), (Long) key);
+            case NAME -> compareNames(dataset.getName(row), (String) key);
+            case CREATEDON -> dataset.getCreatedOn(row).compareTo((Instant) key);
+            case STATUS -> Integer.compare(dataset.getStatusOrdinal(row), key == null ? -1 : ((StatusEnum) key).ordinal());
+            case DELTA -> compareDeltas(dataset.getDelta(row), (Long) key);
+        };
+    }
+
+    private static int compareNames(final String first, final String second) {
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return String.CASE_INSENSITIVE_ORDER.compare(first, second);
+    }
+
+    private static int compareDeltas(final Long first, final Long second) {
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return Long.compare(first, second);
+    }
+}
@@ -0,0 +1,760 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable columnar snapshot of the loaded records together with the indexes derived from them.
+ * Every record field is stored in a primitive column, names and descriptions are dictionary encoded,
+ * and Record objects are only created for the rows that are returned to the client.
+ */
+public class RecordDataset {
+    private static final StatusEnum[] STATUS_VALUES = StatusEnum.values();
+    private static final byte NULL_STATUS = -1;
+    private static final int NULL_CODE = -1;
+    private static final int MAX_COMPOSITE_SORT_INDEXES = 16;
+    private static final AtomicLong versionSequence = new AtomicLong();
+
+    private final long version = versionSequence.incrementAndGet();
+    private final Instant builtAt = Instant.now();
+
+    private final boolean isRestoredFromSnapshot;
+    private final int mergesSinceCompaction;
+    private final Set<String> appliedSegments;
+    private final Long sourceGeneration;
+    private final int size;
+    private final long[] ids;
+    private final long[] createdOnSeconds;
+    private final int[] createdOnNanos;
+    private final long[] deltas;
+    private final BitSet nullDeltas;
+    private final byte[] statuses;
+    private final int[] nameCodes;
+    private final String[] nameDictionary;
+    private final int[] descriptionCodes;
+    private final String[] descriptionDictionary;
+    private final Map<FieldEnum, SortIndex> sortIndexes = new EnumMap<>(FieldEnum.class);
+    private final Map<RecordSort, SortIndex> compositeSortIndexes = new ConcurrentHashMap<>();
+    private final Map<StatusEnum, BitSet> statusIndexes = new EnumMap<>(StatusEnum.class);
+    private final NameIndex nameIndex;
+    private final RecordAggregates aggregates;
+    private volatile long estimatedHeapBytes = -1;
+
+    private RecordDataset(final Columns columns, final boolean isRestoredFromSnapshot) {
+        this(columns, isRestoredFromSnapshot, null, null, 0);
+    }
+
+    /**
+     * Creates a dataset from its columns. The indexes are built from scratch, or updated from the indexes
+     * of a previous dataset when only the given rows changed.
+     */
+    private RecordDataset(final Columns columns, final boolean isRestoredFromSnapshot, final RecordDataset previous,
+                          final int[] changedRows, final int mergesSinceCompaction) {
+        this.isRestoredFromSnapshot = isRestoredFromSnapshot;
+        this.mergesSinceCompaction = mergesSinceCompaction;
+        this.appliedSegments = columns.appliedSegments();
+        this.sourceGeneration = columns.sourceGeneration();
+        this.size = columns.size();
+        this.ids = columns.ids();
+        this.createdOnSeconds = columns.createdOnSeconds();
+        this.createdOnNanos = columns.createdOnNanos();
+        this.deltas = columns.deltas();
+        this.nullDeltas = columns.nullDeltas();
+        this.statuses = columns.statuses();
+        this.nameCodes = columns.nameCodes();
+        this.nameDictionary = columns.nameDictionary();
+        this.descriptionCodes = columns.descriptionCodes();
+        this.descriptionDictionary = columns.descriptionDictionary();
+        if (previous == null) {
+            for (FieldEnum field : FieldEnum.values()) {
+                sortIndexes.put(field, buildSortIndex(field));
+            }
+            this.nameIndex = NameIndex.build(nameDictionary, nameCodes);
+            for (StatusEnum status : STATUS_VALUES) {
+                statusIndexes.put(status, new BitSet(size));
+            }
+            for (int row = 0; row < size; row++) {
+                if (statuses[row] != NULL_STATUS) {
+                    statusIndexes.get(STATUS_VALUES[statuses[row]]).set(row);
+                }
+            }
+        } else {
+            for (FieldEnum field : FieldEnum.values()) {
+                final long[] keys = sortKeys(field);
+                sortIndexes.put(field, keys == null ? buildSortIndex(field) : SortIndex.merge(previous.getSortIndex(field), keys, changedRows));
+            }
+            this.nameIndex = NameIndex.extend(previous.nameIndex, nameDictionary, nameCodes);
+            for (StatusEnum status : STATUS_VALUES) {
+                final BitSet statusIndex = (BitSet) previous.statusIndexes.get(status).clone();
+                for (int row : changedRows) {
+                    statusIndex.set(row, statuses[row] == status.ordinal());
+                }
+                statusIndexes.put(status, statusIndex);
+            }
+        }
+        this.aggregates = RecordAggregates.of(this);
+    }
+
+    /**
+     * Builds a dataset and its sort indexes from a list of records
+     *
+     * @param records The loaded records
+     * @return The dataset
+     */
+    public static RecordDataset of(final List<Record> records) {
+        final Builder builder = new Builder(records.size());
+        records.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Builds a dataset and its indexes from the columns of a snapshot
+     *
+     * @param columns The columns read from a snapshot
+     * @return The dataset
+     */
+    static RecordDataset restore(final Columns columns) {
+        return new RecordDataset(columns, true);
+    }
+
+    /**
+     * Merges records into a new dataset, keyed by record id. A record replaces the first loaded record with the
+     * same id at its row position, and records with a new id are appended. When a batch holds several records
+     * with the same id, the last one wins. The indexes of the new dataset are updated from the indexes of this
+     * one instead of being rebuilt. Replaced names and descriptions stay in the dictionaries until compaction.
+     *
+     * @param records The new or updated records, in application order
+     * @param segments The names of the segments holding the records
+     * @return The merged dataset
+     */
+    public RecordDataset merge(final List<Record> records, final Collection<String> segments) {
+        final Map<Long, Record> upserts = new LinkedHashMap<>();
+        records.forEach(record -> upserts.put(record.getId(), record));
+        final Builder builder = new Builder(this, upserts.size());
+        final SortIndex idIndex = getSortIndex(FieldEnum.ID);
+        final int[] changedRows = new int[upserts.size()];
+        int changedCount = 0;
+        for (Record record : upserts.values()) {
+            final long id = record.getId();
+            final int position = idIndex.partitionPoint(row -> ids[row] < id, 0, size);
+            if (position < size && ids[idIndex.rowAt(position)] == id) {
+                changedRows[changedCount++] = idIndex.rowAt(position);
+                builder.set(idIndex.rowAt(position), record);
+            } else {
+                changedRows[changedCount++] = builder.size;
+                builder.add(record);
+            }
+        }
+        Arrays.sort(changedRows);
+        final Set<String> mergedSegments = new TreeSet<>(appliedSegments);
+        mergedSegments.addAll(segments);
+        builder.appliedSegments = Collections.unmodifiableSet(mergedSegments);
+        return new RecordDataset(builder.columns(), false, this, changedRows, mergesSinceCompaction + 1);
+    }
+
+    /**
+     * Rebuilds the dataset from its records, dropping the unused dictionary entries left by merges
+     * and building every index from scratch
+     *
+     * @return The compacted dataset
+     */
+    public RecordDataset compact() {
+        final Builder builder = new Builder(size);
+        builder.sourceGeneration = sourceGeneration;
+        builder.appliedSegments = appliedSegments;
+        for (int row = 0; row < size; row++) {
+            builder.add(getRecord(row));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A builder of datasets
+     */
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    /**
+     * @return The unique version of this dataset, increasing with every built dataset
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The instant this dataset was built
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * @return The generation of the storage object the records were loaded from, or null for local records
+     */
+    public Long getSourceGeneration() {
+        return sourceGeneration;
+    }
+
+    /**
+     * @return Whether the records were restored from a local snapshot rather than loaded from their source
+     */
+    public boolean isRestoredFromSnapshot() {
+        return isRestoredFromSnapshot;
+    }
+
+    /**
+     * @return The names of the segments merged into the dataset, in ascending order
+     */
+    public Set<String> getAppliedSegments() {
+        return appliedSegments;
+    }
+
+    /**
+     * @return The number of segment merges since the dataset was last built from scratch
+     */
+    public int getMergesSinceCompaction() {
+        return mergesSinceCompaction;
+    }
+
+    /**
+     * @return The number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap footprint of the dataset: its columns, dictionaries and indexes.
+     * The estimate of the columns and of the indexes built with the dataset is computed on first use,
+     * the composite sort indexes built since are added on every call.
+     *
+     * @return The approximate heap size of the dataset in bytes
+     */
+    public long estimateHeapBytes() {
+        long bytes = estimatedHeapBytes;
+        if (bytes < 0) {
+            bytes = MemoryEstimates.ARRAY_HEADER_BYTES * 7
+                    + (long) Long.BYTES * (ids.length + createdOnSeconds.length + deltas.length)
+                    + (createdOnNanos == null ? 0 : (long) Integer.BYTES * createdOnNanos.length)
+                    + nullDeltas.size() / Byte.SIZE
+                    + statuses.length
+                    + (long) Integer.BYTES * (nameCodes.length + descriptionCodes.length)
+                    + MemoryEstimates.dictionaryBytes(nameDictionary)
+                    + MemoryEstimates.dictionaryBytes(descriptionDictionary)
+                    + nameIndex.estimateHeapBytes();
+            for (SortIndex sortIndex : sortIndexes.values()) {
+                bytes += sortIndex.estimateHeapBytes();
+            }
+            for (BitSet statusIndex : statusIndexes.values()) {
+                bytes += statusIndex.size() / Byte.SIZE;
+            }
+            estimatedHeapBytes = bytes;
+        }
+        for (SortIndex sortIndex : compositeSortIndexes.values()) {
+            bytes += sortIndex.estimateHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Materializes every record of the dataset, in load order
+     *
+     * @return An unmodifiable list view of Record objects created on access
+     */
+    public List<Record> getRecords() {
+        return new AbstractList<>() {
+            @Override
+            public Record get(final int row) {
+                return getRecord(row);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Materializes the record stored at a row position
+     *
+     * @param row The row position
+     * @return A new Record object
+     */
+    public Record getRecord(final int row) {
+        return new Record(ids[row], getName(row), getCreatedOn(row), getStatus(row), getDescription(row), getDelta(row));
+    }
+
+    /**
+     * @param row The row position
+     * @return The record id
+     */
+    public long getId(final int row) {
+        return ids[row];
+    }
+
+    /**
+     * @param row The row position
+     * @return The record name, or null
+     */
+    public String getName(final int row) {
+        final int code = nameCodes[row];
+        return code == NULL_CODE ? null : nameDictionary[code];
+    }
+
+    /**
+     * @param row The row position
+     * @return The dictionary code of the record name, or -1 when the name is null
+     */
+    public int getNameCode(final int row) {
+        return nameCodes[row];
+    }
+
+    /**
+     * @return The distinct record names, indexed by dictionary code
+     */
+    public String[] getNameDictionary() {
+        return nameDictionary;
+    }
+
+    /**
+     * @param row The row position
+     * @return The record creation instant
+     */
+    public Instant getCreatedOn(final int row) {
+        return Instant.ofEpochSecond(createdOnSeconds[row], createdOnNanos == null ? 0 : createdOnNanos[row]);
+    }
+
+    /**
+     * @param row The row position
+     * @return The record status, or null
+     */
+    public StatusEnum getStatus(final int row) {
+        final byte status = statuses[row];
+        return status == NULL_STATUS ? null : STATUS_VALUES[status];
+    }
+
+    /**
+     * @param row The row position
+     * @return The ordinal of the record status, or -1 when the status is null
+     */
+    public int getStatusOrdinal(final int row) {
+        return statuses[row];
+    }
+
+    /**
+     * @param row The row position
+     * @return The record description, or null
+     */
+    public String getDescription(final int row) {
+        final int code = descriptionCodes[row];
+        return code == NULL_CODE ? null : descriptionDictionary[code];
+    }
+
+    /**
+     * @param row The row position
+     * @return The record delta, or null
+     */
+    public Long getDelta(final int row) {
+        return nullDeltas.get(row) ? null : deltas[row];
+    }
+
+    /**
+     * @param row The row position
+     * @return Whether the record has a delta
+     */
+    public boolean hasDelta(final int row) {
+        return !nullDeltas.get(row);
+    }
+
+    /**
+     * @param row The row position
+     * @return The record delta, or 0 when the delta is null
+     */
+    public long getDeltaValue(final int row) {
+        return deltas[row];
+    }
+
+    /**
+     * Returns the sort index of a field
+     *
+     * @param field The sort field
+     * @return The ascending sort index
+     */
+    public SortIndex getSortIndex(final FieldEnum field) {
+        return sortIndexes.get(field);
+    }
+
+    /**
+     * Returns the ascending sort index walked for a sort: the index of its field, or for a sort by several fields
+     * the index of their packed keys, see {@link RecordSort#indexSort()}. The index is walked in the order of the
+     * first sort field. Composite indexes are built on first use and kept with the dataset, up to a bound above
+     * which they are built again for every query.
+     *
+     * @param sort The sort criteria
+     * @return The ascending sort index
+     */
+    public SortIndex getSortIndex(final RecordSort sort) {
+        if (!sort.isComposite()) {
+            return getSortIndex(sort.getField());
+        }
+        final RecordSort indexSort = sort.indexSort();
+        final SortIndex sortIndex = compositeSortIndexes.get(indexSort);
+        if (sortIndex != null) {
+            return sortIndex;
+        }
+        if (compositeSortIndexes.size() >= MAX_COMPOSITE_SORT_INDEXES) {
+            return buildCompositeSortIndex(indexSort);
+        }
+        return compositeSortIndexes.computeIfAbsent(indexSort, this::buildCompositeSortIndex);
+    }
+
+    /**
+     * Returns the bitmap of the rows having a status. The bitmap is shared by every request and must not be modified.
+     *
+     * @param status The record status
+     * @return The read-only bitmap of row positions
+     */
+    public BitSet getStatusIndex(final StatusEnum status) {
+        return statusIndexes.get(status);
+    }
+
+    /**
+     * @return The status counts and delta aggregates of every record, computed when the dataset is built
+     */
+    public RecordAggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * @return The trigram index of the record names
+     */
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * @return The columns of the dataset, to be written to a snapshot
+     */
+    Columns getColumns() {
+        return new Columns(sourceGeneration, appliedSegments, size, ids, createdOnSeconds, createdOnNanos, deltas, nullDeltas,
+                statuses, nameCodes, nameDictionary, descriptionCodes, descriptionDictionary);
+    }
+
+    private SortIndex buildSortIndex(final FieldEnum field) {
+        final long[] keys = sortKeys(field);
+        if (keys == null) {
+            final Comparator<Integer> rowComparator = field == FieldEnum.DELTA
+                    ? Comparator.comparing(this::getDelta, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    : Comparator.comparing(this::getCreatedOn);
+            return SortIndex.build(size, rowComparator);
+        }
+        return SortIndex.build(keys);
+    }
+
+    /**
+     * Builds the sort index of several fields from the ranks of their own sort indexes. The rank of every field,
+     * inverted for a descending field, is packed after the ranks of the previous fields in the bits it needs,
+     * so the rows are ordered by a single primitive sort of the packed keys. When the next rank does not fit,
+     * the packed keys are replaced by their own dense rank, which needs at most 31 bits, before packing goes on.
+     */
+    private SortIndex buildCompositeSortIndex(final RecordSort sort) {
+        final long[] keys = new long[size];
+        int keyBits = 0;
+        for (int position = 0; position < sort.getFields().size(); position++) {
+            final SortIndex fieldIndex = getSortIndex(sort.getFields().get(position));
+            final int rankCount = fieldIndex.rankCount();
+            final int rankBits = Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, rankCount - 1));
+            if (keyBits + rankBits > Long.SIZE - 1) {
+                final SortIndex prefixIndex = SortIndex.build(keys);
+                for (int row = 0; row < size; row++) {
+                    keys[row] = prefixIndex.rank(row);
+                }
+                keyBits = Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, prefixIndex.rankCount() - 1));
+            }
+            final boolean isDescending = sort.getOrders().get(position) == OrderEnum.DESC;
+            for (int row = 0; row < size; row++) {
+                final int rank = fieldIndex.rank(row);
+                keys[row] = (keys[row] << rankBits) | (isDescending ? rankCount - 1 - rank : rank);
+            }
+            keyBits += rankBits;
+        }
+        return SortIndex.build(keys);
+    }
+
+    /**
+     * Returns the primitive sort keys of a field, or null when they do not fit in a long
+     */
+    private long[] sortKeys(final FieldEnum field) {
+        return switch (field) {
+            case ID -> ids;
+            case NAME -> nameSortKeys();
+            case CREATEDON -> createdOnSortKeys();
+            case STATUS -> statusSortKeys();
+            case DELTA -> deltaSortKeys();
+        };
+    }
+
+    /**
+     * Sorts by status ordinal, nulls first
+     */
+    private long[] statusSortKeys() {
+        final long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = statuses[row];
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts by delta, nulls first as the smallest long, unless a delta already is the smallest long
+     */
+    private long[] deltaSortKeys() {
+        if (nullDeltas.isEmpty()) {
+            return deltas;
+        }
+        final long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            if (nullDeltas.get(row)) {
+                keys[row] = Long.MIN_VALUE;
+            } else if (deltas[row] == Long.MIN_VALUE) {
+                return null;
+            } else {
+                keys[row] = deltas[row];
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Sorts by epoch seconds, or by epoch nanoseconds when some instants have a fraction of second
+     */
+    private long[] createdOnSortKeys() {
+        if (createdOnNanos == null) {
+            return createdOnSeconds;
+        }
+        try {
+            final long[] keys = new long[size];
+            for (int row = 0; row < size; row++) {
+                keys[row] = Math.addExact(Math.multiplyExact(createdOnSeconds[row], 1_000_000_000L), createdOnNanos[row]);
+            }
+            return keys;
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ranks the name dictionary case-insensitively, nulls first, and maps every row to the rank of its name
+     */
+    private long[] nameSortKeys() {
+        final Integer[] sortedCodes = new Integer[nameDictionary.length];
+        for (int code = 0; code < sortedCodes.length; code++) {
+            sortedCodes[code] = code;
+        }
+        Arrays.sort(sortedCodes, (first, second) -> String.CASE_INSENSITIVE_ORDER.compare(nameDictionary[first], nameDictionary[second]));
+        final long[] codeRanks = new long[nameDictionary.length];
+        long rank = 0;
+        for (int position = 0; position < sortedCodes.length; position++) {
+            if (position > 0 && String.CASE_INSENSITIVE_ORDER.compare(nameDictionary[sortedCodes[position - 1]], nameDictionary[sortedCodes[position]]) != 0) {
+                rank++;
+            }
+            codeRanks[sortedCodes[position]] = rank;
+        }
+        final long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = nameCodes[row] == NULL_CODE ? -1 : codeRanks[nameCodes[row]];
+        }
+        return keys;
+    }
+
+    /**
+     * Accumulates records into growable primitive columns
+     */
+    public static class Builder {
+        private Long sourceGeneration;
+        private Set<String> appliedSegments = Collections.emptySet();
+        private int size;
+        private long[] ids;
+        private long[] createdOnSeconds;
+        private int[] createdOnNanos;
+        private boolean hasCreatedOnNanos;
+        private long[] deltas;
+        private final BitSet nullDeltas = new BitSet();
+        private byte[] statuses;
+        private int[] nameCodes;
+        private final Dictionary names;
+        private int[] descriptionCodes;
+        private final Dictionary descriptions;
+
+        private Builder(final int capacity) {
+            final int initialCapacity = Math.max(16, capacity);
+            ids = new long[initialCapacity];
+            createdOnSeconds = new long[initialCapacity];
+            createdOnNanos = new int[initialCapacity];
+            deltas = new long[initialCapacity];
+            statuses = new byte[initialCapacity];
+            nameCodes = new int[initialCapacity];
+            descriptionCodes = new int[initialCapacity];
+            names = new Dictionary(new String[0]);
+            descriptions = new Dictionary(new String[0]);
+        }
+
+        /**
+         * Starts from the columns of a dataset, with room for additional rows
+         */
+        private Builder(final RecordDataset dataset, final int additionalCapacity) {
+            final int capacity = dataset.size + additionalCapacity;
+            sourceGeneration = dataset.sourceGeneration;
+            size = dataset.size;
+            ids = Arrays.copyOf(dataset.ids, capacity);
+            createdOnSeconds = Arrays.copyOf(dataset.createdOnSeconds, capacity);
+            createdOnNanos = dataset.createdOnNanos == null ? new int[capacity] : Arrays.copyOf(dataset.createdOnNanos, capacity);
+            hasCreatedOnNanos = dataset.createdOnNanos != null;
+            deltas = Arrays.copyOf(dataset.deltas, capacity);
+            nullDeltas.or(dataset.nullDeltas);
+            statuses = Arrays.copyOf(dataset.statuses, capacity);
+            nameCodes = Arrays.copyOf(dataset.nameCodes, capacity);
+            descriptionCodes = Arrays.copyOf(dataset.descriptionCodes, capacity);
+            names = new Dictionary(dataset.nameDictionary);
+            descriptions = new Dictionary(dataset.descriptionDictionary);
+        }
+
+        /**
+         * Sets the generation of the storage object the records are loaded from
+         *
+         * @param sourceGeneration The storage object generation
+         * @return This builder
+         */
+        public Builder sourceGeneration(final Long sourceGeneration) {
+            this.sourceGeneration = sourceGeneration;
+            return this;
+        }
+
+        /**
+         * Sets the segments whose records are already part of the loaded records
+         *
+         * @param appliedSegments The segment names
+         * @return This builder
+         */
+        public Builder appliedSegments(final Collection<String> appliedSegments) {
+            this.appliedSegments = Collections.unmodifiableSet(new TreeSet<>(appliedSegments));
+            return this;
+        }
+
+        /**
+         * Appends a record to the columns. Records without creation date are stored at the epoch.
+         *
+         * @param record The record to append
+         * @return This builder
+         */
+        public Builder add(final Record record) {
+            ensureCapacity(size + 1);
+            set(size, record);
+            size++;
+            return this;
+        }
+
+        /**
+         * Writes a record to the columns at a row position
+         */
+        private void set(final int row, final Record record) {
+            ids[row] = record.getId();
+            final Instant createdOn = record.getCreatedOn() == null ? Instant.EPOCH : record.getCreatedOn();
+            createdOnSeconds[row] = createdOn.getEpochSecond();
+            createdOnNanos[row] = createdOn.getNano();
+            hasCreatedOnNanos |= createdOn.getNano() != 0;
+            nullDeltas.set(row, record.getDelta() == null);
+            deltas[row] = record.getDelta() == null ? 0 : record.getDelta();
+            statuses[row] = record.getStatus() == null ? NULL_STATUS : (byte) record.getStatus().ordinal();
+            nameCodes[row] = names.encode(record.getName());
+            descriptionCodes[row] = descriptions.encode(record.getDescription());
+        }
+
+        /**
+         * Freezes the columns and builds the dataset indexes
+         *
+         * @return The dataset
+         */
+        public RecordDataset build() {
+            return new RecordDataset(columns(), false);
+        }
+
+        private Columns columns() {
+            return new Columns(sourceGeneration, appliedSegments, size, Arrays.copyOf(ids, size),
+                    Arrays.copyOf(createdOnSeconds, size), hasCreatedOnNanos ? Arrays.copyOf(createdOnNanos, size) : null,
+                    Arrays.copyOf(deltas, size), nullDeltas, Arrays.copyOf(statuses, size),
+                    Arrays.copyOf(nameCodes, size), names.dictionary(),
+                    Arrays.copyOf(descriptionCodes, size), descriptions.dictionary());
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            final int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, newCapacity);
+            createdOnSeconds = Arrays.copyOf(createdOnSeconds, newCapacity);
+            createdOnNanos = Arrays.copyOf(createdOnNanos, newCapacity);
+            deltas = Arrays.copyOf(deltas, newCapacity);
+            statuses = Arrays.copyOf(statuses, newCapacity);
+            nameCodes = Arrays.copyOf(nameCodes, newCapacity);
+            descriptionCodes = Arrays.copyOf(descriptionCodes, newCapacity);
+        }
+    }
+
+    /**
+     * Primitive columns of the records. The created on nanos are null when every instant is a whole second,
+     * and null names, descriptions and statuses are encoded as -1.
+     */
+    record Columns(Long sourceGeneration, Set<String> appliedSegments, int size, long[] ids, long[] createdOnSeconds, int[] createdOnNanos,
+                   long[] deltas, BitSet nullDeltas, byte[] statuses, int[] nameCodes, String[] nameDictionary,
+                   int[] descriptionCodes, String[] descriptionDictionary) {
+    }
+
+    /**
+     * Dictionary encoding of repeated string values, appended to the values of a previous dictionary.
+     * Previous values are not looked up, so a value already in the previous dictionary gets a new code.
+     */
+    private static class Dictionary {
+        private final String[] previousValues;
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        Dictionary(final String[] previousValues) {
+            this.previousValues = previousValues;
+        }
+
+        int encode(final String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            return codes.computeIfAbsent(value, key -> previousValues.length + codes.size());
+        }
+
+        String[] dictionary() {
+            final String[] dictionary = Arrays.copyOf(previousValues, previousValues.length + codes.size());
+            codes.forEach((value, code) -> dictionary[code] = value);
+            return dictionary;
+        }
+    }
+}
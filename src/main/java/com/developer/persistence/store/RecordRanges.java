@@ -0,0 +1,129 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.BitSet;
+
+/**
+ * Range filters on the creation date and the delta of the records. Creation dates are matched from the inclusive
+ * lower bound to the exclusive upper bound, so consecutive time windows do not overlap, and deltas between both
+ * inclusive bounds. Records without delta never match a delta range. Every bound is optional.
+ */
+@EqualsAndHashCode
+@ToString
+public final class RecordRanges {
+    /**
+     * The ranges of a query without range filter
+     */
+    public static final RecordRanges NONE = new RecordRanges(null, null, null, null);
+
+    private final Instant createdFrom;
+    private final Instant createdTo;
+    private final Long deltaMin;
+    private final Long deltaMax;
+
+    private RecordRanges(final Instant createdFrom, final Instant createdTo, final Long deltaMin, final Long deltaMax) {
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.deltaMin = deltaMin;
+        this.deltaMax = deltaMax;
+    }
+
+    /**
+     * Creates the range filters of a request
+     *
+     * @param createdFrom The first creation date matched, or null
+     * @param createdTo The creation date following the last one matched, or null
+     * @param deltaMin The smallest delta matched, or null
+     * @param deltaMax The largest delta matched, or null
+     * @return The range filters
+     */
+    public static RecordRanges of(final Instant createdFrom, final Instant createdTo, final Long deltaMin, final Long deltaMax) {
+        if (createdFrom == null && createdTo == null && deltaMin == null && deltaMax == null) {
+            return NONE;
+        }
+        return new RecordRanges(createdFrom, createdTo, deltaMin, deltaMax);
+    }
+
+    /**
+     * @return Whether no range filter applies
+     */
+    public boolean isEmpty() {
+        return this.equals(NONE);
+    }
+
+    /**
+     * Finds the rows matching every range. Each range is resolved to a contiguous span of the ascending sort index
+     * of its field with two binary searches, and the spans of both fields are intersected.
+     *
+     * @param dataset The dataset of records
+     * @return A new bitmap of the matching row positions, or null when no range filter applies
+     */
+    public BitSet findRows(final RecordDataset dataset) {
+        BitSet rows = null;
+        if (createdFrom != null || createdTo != null) {
+            rows = findCreatedOnRows(dataset);
+        }
+        if (deltaMin != null || deltaMax != null) {
+            final BitSet deltaRows = findDeltaRows(dataset);
+            if (rows == null) {
+                rows = deltaRows;
+            } else {
+                rows.and(deltaRows);
+            }
+        }
+        return rows;
+    }
+
+    private BitSet findCreatedOnRows(final RecordDataset dataset) {
+        final SortIndex sortIndex = dataset.getSortIndex(FieldEnum.CREATEDON);
+        final int start = createdFrom == null ? 0
+                : sortIndex.partitionPoint(row -> dataset.getCreatedOn(row).isBefore(createdFrom), 0, dataset.size());
+        final int end = createdTo == null ? dataset.size()
+                : sortIndex.partitionPoint(row -> dataset.getCreatedOn(row).isBefore(createdTo), start, dataset.size());
+        return sortIndex.rowsBetween(start, end);
+    }
+
+    /**
+     * Records without delta come first in the delta sort index, so they are always ordered before the span
+     */
+    private BitSet findDeltaRows(final RecordDataset dataset) {
+        final SortIndex sortIndex = dataset.getSortIndex(FieldEnum.DELTA);
+        final int start = sortIndex.partitionPoint(
+                row -> !dataset.hasDelta(row) || (deltaMin != null && dataset.getDeltaValue(row) < deltaMin), 0, dataset.size());
+        final int end = deltaMax == null ? dataset.size()
+                : sortIndex.partitionPoint(row -> dataset.getDeltaValue(row) <= deltaMax, start, dataset.size());
+        return sortIndex.rowsBetween(start, end);
+    }
+
+    /**
+     * @return The first creation date matched, or null
+     */
+    public Instant getCreatedFrom() {
+        return createdFrom;
+    }
+
+    /**
+     * @return The creation date following the last one matched, or null
+     */
+    public Instant getCreatedTo() {
+        return createdTo;
+    }
+
+    /**
+     * @return The smallest delta matched, or null
+     */
+    public Long getDeltaMin() {
+        return deltaMin;
+    }
+
+    /**
+     * @return The largest delta matched, or null
+     */
+    public Long getDeltaMax() {
+        return deltaMax;
+    }
+}
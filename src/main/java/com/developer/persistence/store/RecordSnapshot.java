@@ -0,0 +1,257 @@
+package com.developer.persistence.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary snapshot of the dataset columns, used to restart without downloading and parsing the records.
+ * The file holds a header with the format version, the source object generation and the applied segments, every column as a
+ * big-endian primitive array, the name and description dictionaries, and a trailing CRC32C of all the previous bytes.
+ * Indexes are not stored, they are rebuilt from the columns when the snapshot is read.
+ */
+public class RecordSnapshot {
+    private static final int MAGIC = 0x52454344;
+    private static final int FORMAT_VERSION = 2;
+    private static final int CHECKSUM_LENGTH = Long.BYTES;
+    private static final int MAX_REGION_BYTES = 1 << 30;
+
+    private RecordSnapshot() {
+    }
+
+    /**
+     * Writes the snapshot of a dataset. The file is written next to the target and then moved in place,
+     * so a crash while writing never replaces the previous snapshot with a partial one.
+     *
+     * @param dataset The dataset to save
+     * @param file The snapshot file
+     * @throws IOException when the snapshot can not be written
+     */
+    public static void write(final RecordDataset dataset, final Path file) throws IOException {
+        final RecordDataset.Columns columns = dataset.getColumns();
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            final CRC32C checksum = new CRC32C();
+            try (OutputStream fileOutput = Files.newOutputStream(temporaryFile);
+                 DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOutput, 1 << 16), checksum))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeBoolean(columns.sourceGeneration() != null);
+                output.writeLong(columns.sourceGeneration() == null ? 0 : columns.sourceGeneration());
+                writeDictionary(output, columns.appliedSegments().toArray(new String[0]));
+                output.writeInt(columns.size());
+                writeLongs(output, columns.ids());
+                writeLongs(output, columns.createdOnSeconds());
+                output.writeBoolean(columns.createdOnNanos() != null);
+                if (columns.createdOnNanos() != null) {
+                    writeInts(output, columns.createdOnNanos());
+                }
+                writeLongs(output, columns.deltas());
+                final long[] nullDeltaWords = columns.nullDeltas().toLongArray();
+                output.writeInt(nullDeltaWords.length);
+                writeLongs(output, nullDeltaWords);
+                output.write(columns.statuses());
+                writeInts(output, columns.nameCodes());
+                writeDictionary(output, columns.nameDictionary());
+                writeInts(output, columns.descriptionCodes());
+                writeDictionary(output, columns.descriptionDictionary());
+                output.flush();
+                // The checksum itself is written after the checked bytes
+                new DataOutputStream(fileOutput).writeLong(checksum.getValue());
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Reads a snapshot by memory-mapping the file, verifying its checksum and rebuilding the dataset indexes
+     *
+     * @param file The snapshot file
+     * @return The restored dataset
+     * @throws IOException when the snapshot can not be read, or is corrupted or from another format version
+     */
+    public static RecordDataset read(final Path file) throws IOException {
+        return read(file, MAX_REGION_BYTES);
+    }
+
+    /**
+     * Reads a snapshot mapping the file in consecutive regions of at most the given size, a single mapped buffer
+     * being limited to 2 GiB
+     */
+    static RecordDataset read(final Path file, final int regionBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long checksumPosition = channel.size() - CHECKSUM_LENGTH;
+            if (checksumPosition < 0) {
+                throw new IOException("Truncated snapshot " + file);
+            }
+            final CRC32C checksum = new CRC32C();
+            for (long position = 0; position < checksumPosition; position += regionBytes) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionBytes, checksumPosition - position)));
+            }
+            if (checksum.getValue() != channel.map(FileChannel.MapMode.READ_ONLY, checksumPosition, CHECKSUM_LENGTH).getLong()) {
+                throw new IOException("Checksum mismatch in snapshot " + file);
+            }
+            final MappedInput content = new MappedInput(channel, checksumPosition, regionBytes);
+            if (content.getInt() != MAGIC || content.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format in " + file);
+            }
+            final boolean hasSourceGeneration = content.get() != 0;
+            final long sourceGeneration = content.getLong();
+            final Set<String> appliedSegments = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(readDictionary(content))));
+            final int size = content.getInt();
+            final long[] ids = content.getLongs(size);
+            final long[] createdOnSeconds = content.getLongs(size);
+            final int[] createdOnNanos = content.get() != 0 ? content.getInts(size) : null;
+            final long[] deltas = content.getLongs(size);
+            final BitSet nullDeltas = BitSet.valueOf(content.getLongs(content.getInt()));
+            final byte[] statuses = content.getBytes(size);
+            final int[] nameCodes = content.getInts(size);
+            final String[] nameDictionary = readDictionary(content);
+            final int[] descriptionCodes = content.getInts(size);
+            final String[] descriptionDictionary = readDictionary(content);
+            if (content.hasRemaining()) {
+                throw new IOException("Unexpected trailing bytes in snapshot " + file);
+            }
+            return RecordDataset.restore(new RecordDataset.Columns(hasSourceGeneration ? sourceGeneration : null, appliedSegments, size,
+                    ids, createdOnSeconds, createdOnNanos, deltas, nullDeltas, statuses,
+                    nameCodes, nameDictionary, descriptionCodes, descriptionDictionary));
+        } catch (EOFException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated snapshot " + file, e);
+        }
+    }
+
+    private static void writeLongs(final DataOutputStream output, final long[] values) throws IOException {
+        for (long value : values) {
+            output.writeLong(value);
+        }
+    }
+
+    private static void writeInts(final DataOutputStream output, final int[] values) throws IOException {
+        for (int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    private static void writeDictionary(final DataOutputStream output, final String[] dictionary) throws IOException {
+        output.writeInt(dictionary.length);
+        for (String value : dictionary) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String[] readDictionary(final MappedInput content) throws IOException {
+        final String[] dictionary = new String[content.getInt()];
+        for (int code = 0; code < dictionary.length; code++) {
+            dictionary[code] = new String(content.getBytes(content.getInt()), StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Sequential big-endian reader of the content of a snapshot. The file is mapped one region at a time, a new region
+     * being mapped from the current position when the mapped one does not hold the next value, and arrays are
+     * read in chunks, so values may span regions.
+     */
+    private static final class MappedInput {
+        private final FileChannel channel;
+        private final long length;
+        private final int regionBytes;
+        private long regionStart;
+        private ByteBuffer region = ByteBuffer.allocate(0);
+
+        MappedInput(final FileChannel channel, final long length, final int regionBytes) {
+            this.channel = channel;
+            this.length = length;
+            this.regionBytes = regionBytes;
+        }
+
+        /**
+         * Returns the mapped region holding at least the given number of bytes from the current position
+         */
+        private ByteBuffer require(final int bytes) throws IOException {
+            if (region.remaining() >= bytes) {
+                return region;
+            }
+            final long position = regionStart + region.position();
+            if (position + bytes > length) {
+                throw new EOFException();
+            }
+            regionStart = position;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionBytes, length - position));
+            return region;
+        }
+
+        boolean hasRemaining() {
+            return regionStart + region.position() < length;
+        }
+
+        byte get() throws IOException {
+            return require(Byte.BYTES).get();
+        }
+
+        int getInt() throws IOException {
+            return require(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return require(Long.BYTES).getLong();
+        }
+
+        byte[] getBytes(final int count) throws IOException {
+            final byte[] values = new byte[count];
+            for (int offset = 0; offset < count; ) {
+                final ByteBuffer buffer = require(Byte.BYTES);
+                final int chunk = Math.min(count - offset, buffer.remaining());
+                buffer.get(values, offset, chunk);
+                offset += chunk;
+            }
+            return values;
+        }
+
+        int[] getInts(final int count) throws IOException {
+            final int[] values = new int[count];
+            for (int offset = 0; offset < count; ) {
+                final ByteBuffer buffer = require(Integer.BYTES);
+                final int chunk = Math.min(count - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Integer.BYTES);
+                offset += chunk;
+            }
+            return values;
+        }
+
+        long[] getLongs(final int count) throws IOException {
+            final long[] values = new long[count];
+            for (int offset = 0; offset < count; ) {
+                final ByteBuffer buffer = require(Long.BYTES);
+                final int chunk = Math.min(count - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().get(values, offset, chunk);
+                buffer.position(buffer.position() + chunk * Long.BYTES);
+                offset += chunk;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalized sort criteria: one or more sort fields, each with its own order.
+ * Records are ordered by the first field, records with equal values by the next field, and so on,
+ * and records equal on every field keep their load order.
+ */
+@EqualsAndHashCode
+@ToString
+public final class RecordSort {
+    private final List<FieldEnum> fields;
+    private final List<OrderEnum> orders;
+
+    private RecordSort(final List<FieldEnum> fields, final List<OrderEnum> orders) {
+        this.fields = Collections.unmodifiableList(fields);
+        this.orders = Collections.unmodifiableList(orders);
+    }
+
+    /**
+     * Creates the criteria of a sort by a single field
+     *
+     * @param field The sort field
+     * @param order The sort order
+     * @return The sort criteria
+     */
+    public static RecordSort by(final FieldEnum field, final OrderEnum order) {
+        return new RecordSort(List.of(field), List.of(order));
+    }
+
+    /**
+     * Normalizes the sort criteria of a request. Without sort field the records are sorted by ascending id.
+     * Every field takes the order at the same position, fields without one take the last given order,
+     * or the descending order when no order is given. A field repeated after its first occurrence can not
+     * change the order and is dropped.
+     *
+     * @param fields The sort fields, possibly null
+     * @param orders The sort orders, possibly null
+     * @return The sort criteria
+     */
+    public static RecordSort of(final List<FieldEnum> fields, final List<OrderEnum> orders) {
+        if (fields == null || fields.isEmpty()) {
+            return by(FieldEnum.ID, OrderEnum.ASC);
+        }
+        final List<FieldEnum> sortFields = new ArrayList<>(fields.size());
+        final List<OrderEnum> sortOrders = new ArrayList<>(fields.size());
+        final Set<FieldEnum> seenFields = EnumSet.noneOf(FieldEnum.class);
+        OrderEnum order = OrderEnum.DESC;
+        for (int position = 0; position < fields.size(); position++) {
+            if (orders != null && position < orders.size() && orders.get(position) != null) {
+                order = orders.get(position);
+            }
+            if (fields.get(position) != null && seenFields.add(fields.get(position))) {
+                sortFields.add(fields.get(position));
+                sortOrders.add(order);
+            }
+        }
+        return sortFields.isEmpty() ? by(FieldEnum.ID, OrderEnum.ASC) : new RecordSort(sortFields, sortOrders);
+    }
+
+    /**
+     * @return The sort fields, from the most to the least significant
+     */
+    public List<FieldEnum> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return The order of every sort field
+     */
+    public List<OrderEnum> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return The most significant sort field
+     */
+    public FieldEnum getField() {
+        return fields.get(0);
+    }
+
+    /**
+     * @return The order of the most significant sort field
+     */
+    public OrderEnum getOrder() {
+        return orders.get(0);
+    }
+
+    /**
+     * @return Whether the records are sorted by more than one field
+     */
+    public boolean isComposite() {
+        return fields.size() > 1;
+    }
+
+    /**
+     * Returns the criteria of the ascending sort index walked for this sort: the same fields, with the orders
+     * of this sort when the first field is ascending, or every order reversed when it is descending.
+     * Walking the index in the order of the first field then gives the order of this sort.
+     *
+     * @return The sort criteria with an ascending first field
+     */
+    RecordSort indexSort() {
+        if (getOrder() == OrderEnum.ASC) {
+            return this;
+        }
+        final List<OrderEnum> indexOrders = new ArrayList<>(orders.size());
+        for (OrderEnum order : orders) {
+            indexOrders.add(order == OrderEnum.ASC ? OrderEnum.DESC : OrderEnum.ASC);
+        }
+        return new RecordSort(fields, indexOrders);
+    }
+}
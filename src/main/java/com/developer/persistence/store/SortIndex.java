@@ -0,0 +1,326 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.OrderEnum;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntPredicate;
+
+/**
+ * Ascending permutation of the dataset rows for a sort field, or for several sort fields packed into a single key.
+ * Rows with equal keys keep their load order, so walking the index backwards by runs of equal keys
+ * returns the same ordering as a stable descending sort.
+ */
+public class SortIndex {
+
+    private final int[] order;
+
+    private final int[] rank;
+
+    private SortIndex(final int[] order, final int[] rank) {
+        this.order = order;
+        this.rank = rank;
+    }
+
+    /**
+     * Builds the ascending sort index of the rows from a column of primitive sort keys.
+     * Keys are replaced by their dense rank and packed with the row position into a single long,
+     * so the index is produced by one primitive sort that keeps equal keys in load order.
+     *
+     * @param keys The sort key of every row
+     * @return The sort index
+     */
+    public static SortIndex build(final long[] keys) {
+        final long[] distinctKeys = keys.clone();
+        Arrays.sort(distinctKeys);
+        int distinctCount = 0;
+        for (int position = 0; position < distinctKeys.length; position++) {
+            if (position == 0 || distinctKeys[position] != distinctKeys[distinctCount - 1]) {
+                distinctKeys[distinctCount++] = distinctKeys[position];
+            }
+        }
+
+        final int size = keys.length;
+        final int[] rank = new int[size];
+        final long[] packed = new long[size];
+        for (int row = 0; row < size; row++) {
+            rank[row] = Arrays.binarySearch(distinctKeys, 0, distinctCount, keys[row]);
+            packed[row] = ((long) rank[row] << 32) | row;
+        }
+        Arrays.sort(packed);
+
+        final int[] order = new int[size];
+        for (int position = 0; position < size; position++) {
+            order[position] = (int) packed[position];
+        }
+        return new SortIndex(order, rank);
+    }
+
+    /**
+     * Builds the ascending sort index of the rows using the given row comparator
+     *
+     * @param size The number of rows
+     * @param rowComparator The comparator between two row positions
+     * @return The sort index
+     */
+    public static SortIndex build(final int size, final Comparator<Integer> rowComparator) {
+        final Integer[] boxedOrder = new Integer[size];
+        for (int row = 0; row < size; row++) {
+            boxedOrder[row] = row;
+        }
+        Arrays.sort(boxedOrder, rowComparator);
+
+        final int[] order = new int[size];
+        final int[] rank = new int[size];
+        int currentRank = 0;
+        for (int position = 0; position < size; position++) {
+            order[position] = boxedOrder[position];
+            if (position > 0 && rowComparator.compare(boxedOrder[position - 1], boxedOrder[position]) != 0) {
+                currentRank++;
+            }
+            rank[order[position]] = currentRank;
+        }
+        return new SortIndex(order, rank);
+    }
+
+    /**
+     * Updates a sort index after some rows changed or were appended, without sorting the unchanged rows again.
+     * The unchanged rows keep their relative order from the previous index, as long as the new keys order them
+     * the same way as the previous keys did. Only the changed rows are sorted, then both sequences are merged
+     * and the ranks are recomputed in a single pass.
+     *
+     * @param previous The sort index before the change
+     * @param keys The sort key of every row after the change
+     * @param changedRows The updated and appended row positions, in ascending order
+     * @return The sort index after the change
+     */
+    public static SortIndex merge(final SortIndex previous, final long[] keys, final int[] changedRows) {
+        final int size = keys.length;
+        final long[] changedKeys = new long[changedRows.length];
+        for (int position = 0; position < changedRows.length; position++) {
+            changedKeys[position] = keys[changedRows[position]];
+        }
+        final int[] sortedChangedRows = build(changedKeys).order;
+        final BitSet isChanged = new BitSet(size);
+        for (int row : changedRows) {
+            isChanged.set(row);
+        }
+
+        final int[] order = new int[size];
+        int position = 0;
+        int changedPosition = 0;
+        for (int row : previous.order) {
+            if (isChanged.get(row)) {
+                continue;
+            }
+            while (changedPosition < sortedChangedRows.length && isOrderedBefore(keys, changedRows[sortedChangedRows[changedPosition]], row)) {
+                order[position++] = changedRows[sortedChangedRows[changedPosition++]];
+            }
+            order[position++] = row;
+        }
+        while (changedPosition < sortedChangedRows.length) {
+            order[position++] = changedRows[sortedChangedRows[changedPosition++]];
+        }
+
+        final int[] rank = new int[size];
+        int currentRank = 0;
+        for (position = 0; position < size; position++) {
+            if (position > 0 && keys[order[position - 1]] != keys[order[position]]) {
+                currentRank++;
+            }
+            rank[order[position]] = currentRank;
+        }
+        return new SortIndex(order, rank);
+    }
+
+    private static boolean isOrderedBefore(final long[] keys, final int firstRow, final int secondRow) {
+        return keys[firstRow] < keys[secondRow] || (keys[firstRow] == keys[secondRow] && firstRow < secondRow);
+    }
+
+    /**
+     * @return The number of indexed rows
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @return The number of distinct keys
+     */
+    public int rankCount() {
+        return order.length == 0 ? 0 : rank[order[order.length - 1]] + 1;
+    }
+
+    /**
+     * Returns the dense rank of the key of a row: equal keys have the same rank, and the smallest key has rank 0
+     *
+     * @param row The row position
+     * @return The rank of the row key
+     */
+    public int rank(final int row) {
+        return rank[row];
+    }
+
+    /**
+     * @return The approximate heap size of the index in bytes
+     */
+    public long estimateHeapBytes() {
+        return MemoryEstimates.ARRAY_HEADER_BYTES * 2 + (long) Integer.BYTES * (order.length + rank.length);
+    }
+
+    /**
+     * Returns an iterator over the rows in the given order, starting at the given position
+     *
+     * @param sortOrder The order (ascending or descending)
+     * @param position The zero based position of the first row to return
+     * @return An iterator of row positions
+     */
+    public PrimitiveIterator.OfInt iterator(final OrderEnum sortOrder, final int position) {
+        if (sortOrder == OrderEnum.ASC) {
+            return new AscendingIterator(position);
+        }
+        return new DescendingIterator(position);
+    }
+
+    /**
+     * Returns the row at a position of the ascending order
+     *
+     * @param position The zero based position
+     * @return The row position
+     */
+    public int rowAt(final int position) {
+        return order[position];
+    }
+
+    /**
+     * Binary searches the first position of the ascending order whose row does not satisfy the predicate,
+     * given that the predicate holds for a prefix of the order
+     *
+     * @param isBefore The predicate holding for the rows ordered before the searched position
+     * @param fromPosition The first position of the searched range
+     * @param toPosition The position following the last one of the searched range
+     * @return The first position in the range whose row does not satisfy the predicate
+     */
+    public int partitionPoint(final IntPredicate isBefore, final int fromPosition, final int toPosition) {
+        int low = fromPosition;
+        int high = toPosition;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (isBefore.test(order[middle])) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the rows of a span of the ascending order
+     *
+     * @param fromPosition The first position of the span
+     * @param toPosition The position following the last one of the span
+     * @return A new bitmap of the row positions of the span
+     */
+    public BitSet rowsBetween(final int fromPosition, final int toPosition) {
+        final BitSet rows = new BitSet(order.length);
+        for (int position = fromPosition; position < toPosition; position++) {
+            rows.set(order[position]);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a primitive key of a row that orders rows exactly like the index walk in the given order:
+     * the key rank, inverted for descending order, followed by the row position, which keeps equal keys in load order
+     *
+     * @param row The row position
+     * @param sortOrder The order (ascending or descending)
+     * @return The packed sort key
+     */
+    public long sortKey(final int row, final OrderEnum sortOrder) {
+        final long keyRank = sortOrder == OrderEnum.ASC ? rank[row] : Integer.MAX_VALUE - rank[row];
+        return (keyRank << 32) | row;
+    }
+
+    private int runStart(final int index) {
+        int start = index;
+        while (start > 0 && rank[order[start - 1]] == rank[order[index]]) {
+            start--;
+        }
+        return start;
+    }
+
+    private int runEnd(final int index) {
+        int end = index;
+        while (end < order.length - 1 && rank[order[end + 1]] == rank[order[index]]) {
+            end++;
+        }
+        return end;
+    }
+
+    private class AscendingIterator implements PrimitiveIterator.OfInt {
+        private int index;
+
+        AscendingIterator(final int position) {
+            this.index = Math.max(0, position);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < order.length;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return order[index++];
+        }
+    }
+
+    /**
+     * Walks the runs of equal keys from the last to the first one, returning each run in load order.
+     */
+    private class DescendingIterator implements PrimitiveIterator.OfInt {
+        private int index;
+        private int runStart;
+        private int runEnd;
+
+        DescendingIterator(final int position) {
+            if (position >= order.length) {
+                this.index = 0;
+                this.runStart = 0;
+                this.runEnd = -1;
+                return;
+            }
+            final int mirrored = order.length - 1 - Math.max(0, position);
+            this.runStart = runStart(mirrored);
+            this.runEnd = runEnd(mirrored);
+            this.index = runStart + (runEnd - mirrored);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index <= runEnd;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int row = order[index++];
+            if (index > runEnd && runStart > 0) {
+                runEnd = runStart - 1;
+                runStart = runStart(runEnd);
+                index = runStart;
+            }
+            return row;
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package com.developer.service;
 
+import com.developer.actuator.RecordMetrics;
 import com.developer.controller.model.Record;
 import com.developer.exception.DataManagerInternalException;
-import com.developer.persistence.entity.PersistenceData;
-import com.developer.persistence.mapper.DataObjectMapperBuilder;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.developer.persistence.mapper.RecordStreamReader;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordSnapshot;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class DataService {
     private static final Logger logger = LoggerFactory.getLogger(DataService.class);
+    private static final String SNAPSHOT_FILE_NAME = "records.snapshot";
+    private static final String SEGMENT_EXTENSION = ".ndjson";
 
     @Value("${google.cloud.storage.bucket}")
     private String bucketName;
@@ -27,7 +48,16 @@ public class DataService {
     @Value("${google.cloud.storage.object}")
     private String publicObjectName;
 
-    private List<Record> data = new ArrayList<>();
+    @Value("${google.cloud.storage.host:}")
+    String storageHost;
+
+    private volatile RecordDataset dataset;
+
+    private final AtomicReference<CompletableFuture<RecordDataset>> pendingLoad = new AtomicReference<>();
+
+    private volatile Throwable lastLoadFailure;
+
+    private volatile Instant lastRefreshAt;
 
     @Value("classpath:data/data.json")
     private Resource resourceFile;
@@ -35,56 +65,441 @@ public class DataService {
     @Value("${dataservice.cloud.enabled:true}")
     public Boolean isDataFromServer;
 
+    @Value("${dataservice.eager-load.enabled:false}")
+    boolean isEagerLoadEnabled;
+
+    @Value("${dataservice.eager-load.retry-delay:1s}")
+    Duration eagerLoadRetryDelay = Duration.ofSeconds(1);
+
+    @Value("${dataservice.eager-load.max-retry-delay:1m}")
+    Duration eagerLoadMaxRetryDelay = Duration.ofMinutes(1);
+
+    @Value("${dataservice.snapshot.directory:}")
+    String snapshotDirectory;
+
+    @Value("${dataservice.segments.prefix:}")
+    String segmentPrefix;
+
+    @Value("${dataservice.segments.directory:}")
+    String segmentDirectory;
+
+    @Value("${dataservice.segments.compaction-merges:20}")
+    int compactionMerges = 20;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean isVirtualThreadsEnabled;
+
+    @Autowired
+    RecordMetrics recordMetrics = new RecordMetrics();
+
+    /**
+     * Starts loading the dataset in the background once the application has started, when eager loading is enabled.
+     * Readiness reports the service out of service until the dataset is in memory.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void loadOnStartup() {
+        if (!isEagerLoadEnabled) {
+            return;
+        }
+        startBackgroundThread("dataset-loader", this::loadUntilLoaded);
+    }
+
+    /**
+     * Loads the dataset, retrying failed loads with a delay doubling up to a maximum until a load succeeds.
+     * Readiness keeps the service out of traffic meanwhile, so no request would trigger the retry.
+     */
+    void loadUntilLoaded() {
+        Duration retryDelay = eagerLoadRetryDelay;
+        while (dataset == null) {
+            try {
+                getDataset();
+            } catch (RuntimeException e) {
+                logger.error("Eager load of the dataset failed, it will be retried in {}", retryDelay, e);
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                final Duration doubledDelay = retryDelay.multipliedBy(2);
+                retryDelay = doubledDelay.compareTo(eagerLoadMaxRetryDelay) > 0 ? eagerLoadMaxRetryDelay : doubledDelay;
+            }
+        }
+    }
+
     /**
      * Retrieves the list of records from the storage server
      *
      * @return A list of Record objects
      */
     public List<Record> getRecords() {
-        if (!data.isEmpty()) {
+        return getDataset().getRecords();
+    }
+
+    /**
+     * Retrieves the dataset of records from the storage server, building its columns and sort indexes on first load.
+     * Loading is single-flight: concurrent callers wait for the same load, and the dataset is published
+     * only once it is fully built.
+     *
+     * @return The RecordDataset with the loaded records
+     */
+    public RecordDataset getDataset() {
+        final RecordDataset currentDataset = dataset;
+        if (currentDataset != null) {
             logger.debug("Get records from cached data");
-            return data;
+            return currentDataset;
+        }
+        final CompletableFuture<RecordDataset> load = new CompletableFuture<>();
+        final CompletableFuture<RecordDataset> runningLoad = pendingLoad.compareAndExchange(null, load);
+        if (runningLoad != null) {
+            logger.debug("Wait for the running load of the records");
+            return awaitLoad(runningLoad);
+        }
+        final RecordDataset previousDataset = dataset;
+        final RecordDataset loadedDataset = runLoad(load, () -> previousDataset != null ? previousDataset : loadInitialDataset());
+        if (loadedDataset != previousDataset && loadedDataset.isRestoredFromSnapshot()) {
+            reconcileInBackground();
+        }
+        return loadedDataset;
+    }
+
+    /**
+     * Refreshes the dataset from the storage server when the storage object changed.
+     * The object generation is checked first, and only a new generation is downloaded and parsed.
+     * The new dataset is built off the request path and swapped in atomically, requests already running
+     * finish on the previous dataset.
+     *
+     * @return Whether a new dataset was swapped in
+     */
+    public boolean refresh() {
+        if (!isDataFromServer) {
+            return false;
+        }
+        final CompletableFuture<RecordDataset> load = new CompletableFuture<>();
+        if (pendingLoad.compareAndExchange(null, load) != null) {
+            logger.debug("Skip refresh, a load of the records is already running");
+            return false;
+        }
+        final RecordDataset previousDataset = dataset;
+        final RecordDataset refreshedDataset = runLoad(load, () -> {
+            final Long generation = getSourceGeneration();
+            if (previousDataset != null && Objects.equals(generation, previousDataset.getSourceGeneration())) {
+                logger.debug("Storage object generation {} unchanged, keep dataset version {}", generation, previousDataset.getVersion());
+                return previousDataset;
+            }
+            return loadDataset(generation);
+        });
+        lastRefreshAt = Instant.now();
+        return refreshedDataset != previousDataset;
+    }
+
+    /**
+     * Merges the new segments into the loaded dataset. Segments are newline delimited json files of new or updated
+     * records, listed from the bucket prefix and the local directory and applied in ascending name order.
+     * The indexes are updated rather than rebuilt, and the dataset is compacted after a number of merges.
+     *
+     * @return Whether a new dataset was swapped in
+     */
+    public boolean ingestSegments() {
+        final RecordDataset previousDataset = dataset;
+        if (!isSegmentIngestionEnabled() || previousDataset == null) {
+            return false;
+        }
+        final CompletableFuture<RecordDataset> load = new CompletableFuture<>();
+        if (pendingLoad.compareAndExchange(null, load) != null) {
+            logger.debug("Skip segment ingestion, a load of the records is already running");
+            return false;
+        }
+        final RecordDataset currentDataset = dataset;
+        return runLoad(load, () -> mergeSegments(currentDataset, listSegments())) != currentDataset;
+    }
+
+    /**
+     * Runs a load holding the single-flight slot and publishes its dataset
+     */
+    private RecordDataset runLoad(final CompletableFuture<RecordDataset> load, final Supplier<RecordDataset> loader) {
+        try {
+            final RecordDataset previousDataset = dataset;
+            final RecordDataset loadedDataset = loader.get();
+            dataset = loadedDataset;
+            lastLoadFailure = null;
+            load.complete(loadedDataset);
+            if (loadedDataset != previousDataset && !loadedDataset.isRestoredFromSnapshot()) {
+                writeSnapshot(loadedDataset);
+            }
+            return loadedDataset;
+        } catch (RuntimeException e) {
+            lastLoadFailure = e;
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoad.set(null);
         }
+    }
+
+    /**
+     * @return The loaded dataset, or null while it has not been loaded yet
+     */
+    public RecordDataset getLoadedDataset() {
+        return dataset;
+    }
+
+    /**
+     * @return The failure of the last load, or null when it succeeded or no load has failed
+     */
+    public Throwable getLastLoadFailure() {
+        return lastLoadFailure;
+    }
+
+    /**
+     * @return The instant of the last completed refresh, or null when the dataset was never refreshed
+     */
+    public Instant getLastRefreshAt() {
+        return lastRefreshAt;
+    }
+
+    /**
+     * @return Whether the dataset is loaded when the application starts
+     */
+    public boolean isEagerLoadEnabled() {
+        return isEagerLoadEnabled;
+    }
+
+    /**
+     * Merges the segments not applied yet into a dataset
+     *
+     * @param currentDataset The dataset
+     * @param segments The generation of every listed segment by name
+     * @return The merged dataset, or the given one when every segment is applied
+     */
+    private RecordDataset mergeSegments(final RecordDataset currentDataset, final SortedMap<String, Long> segments) {
+        final List<String> newSegments = new ArrayList<>();
+        segments.keySet().forEach(segment -> {
+            if (!currentDataset.getAppliedSegments().contains(segment)) {
+                newSegments.add(segment);
+            }
+        });
+        if (newSegments.isEmpty()) {
+            return currentDataset;
+        }
+        final long startTime = System.nanoTime();
+        final List<Record> records = new ArrayList<>();
+        for (String segment : newSegments) {
+            readSegment(segment, records::add);
+        }
+        RecordDataset mergedDataset = currentDataset.merge(records, newSegments);
+        if (mergedDataset.getMergesSinceCompaction() >= compactionMerges) {
+            mergedDataset = mergedDataset.compact();
+            logger.debug("Compacted dataset version {} with {} records", mergedDataset.getVersion(), mergedDataset.size());
+        }
+        recordMetrics.recordLoadStage(RecordMetrics.SEGMENT_MERGE_STAGE, System.nanoTime() - startTime);
+        logger.debug("Merged {} records of {} segments into dataset version {}", records.size(), newSegments.size(), mergedDataset.getVersion());
+        return mergedDataset;
+    }
+
+    /**
+     * Lists the segments of the bucket prefix, when the records come from the storage server, and of the local directory.
+     * Local segments have no generation: they are not part of any storage object, so they are always merged.
+     * A local segment takes precedence over the bucket object with the same name.
+     *
+     * @return The storage object generation of every segment by name, null for local segments, sorted by name
+     */
+    private SortedMap<String, Long> listSegments() {
+        final SortedMap<String, Long> segments = new TreeMap<>();
+        if (isDataFromServer && StringUtils.isNotBlank(segmentPrefix)) {
+            segments.putAll(GoogleCloudStorageService.listPublicObjectGenerations(storageHost, bucketName, segmentPrefix));
+        }
+        if (StringUtils.isNotBlank(segmentDirectory)) {
+            try (Stream<Path> files = Files.list(Path.of(segmentDirectory))) {
+                files.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().endsWith(SEGMENT_EXTENSION))
+                        .forEach(file -> segments.put(file.getFileName().toString(), null));
+            } catch (IOException e) {
+                throw new DataManagerInternalException("Exception while listing segment files", e);
+            }
+        }
+        return segments;
+    }
+
+    private void readSegment(final String segment, final Consumer<Record> consumer) {
+        final boolean isLocal = StringUtils.isNotBlank(segmentDirectory) && Files.isRegularFile(Path.of(segmentDirectory, segment));
+        try (InputStream input = isLocal
+                ? Files.newInputStream(Path.of(segmentDirectory, segment))
+                : GoogleCloudStorageService.openPublicObject(storageHost, bucketName, segment, null)) {
+            RecordStreamReader.readLines(input, consumer);
+        } catch (IOException e) {
+            throw new DataManagerInternalException("Exception while mapping segment " + segment + " to records", e);
+        }
+    }
+
+    private boolean isSegmentIngestionEnabled() {
+        return (isDataFromServer && StringUtils.isNotBlank(segmentPrefix))
+                || StringUtils.isNotBlank(segmentDirectory);
+    }
+
+    /**
+     * Restores the dataset from the local snapshot when there is a valid one, or loads it from its source
+     *
+     * @return The RecordDataset with the restored or loaded records
+     */
+    private RecordDataset loadInitialDataset() {
+        final Path snapshotFile = getSnapshotFile();
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            try {
+                final long startTime = System.nanoTime();
+                final RecordDataset restoredDataset = RecordSnapshot.read(snapshotFile);
+                recordMetrics.recordLoadStage(RecordMetrics.SNAPSHOT_RESTORE_STAGE, System.nanoTime() - startTime);
+                logger.info("Restored {} records of source generation {} from snapshot {}",
+                        restoredDataset.size(), restoredDataset.getSourceGeneration(), snapshotFile);
+                return restoredDataset;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Ignore unreadable snapshot {}, load the records from their source", snapshotFile, e);
+            }
+        }
+        return loadDataset(null);
+    }
+
+    /**
+     * Saves the snapshot of a dataset loaded from the storage server. Failures are only logged,
+     * the dataset is already published and the previous snapshot is left untouched.
+     */
+    private void writeSnapshot(final RecordDataset loadedDataset) {
+        final Path snapshotFile = getSnapshotFile();
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            RecordSnapshot.write(loadedDataset, snapshotFile);
+            logger.debug("Saved snapshot of dataset version {} to {}", loadedDataset.getVersion(), snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to save snapshot of dataset version {} to {}", loadedDataset.getVersion(), snapshotFile, e);
+        }
+    }
+
+    /**
+     * Checks the storage server in the background after serving a snapshot, replacing the dataset when the object changed
+     */
+    private void reconcileInBackground() {
+        startBackgroundThread("dataset-reconciler", () -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Reconciliation of the snapshot with the storage server failed, keep serving the snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Starts a background daemon thread, a virtual thread when requests run on virtual threads,
+     * so the storage server I/O of the load does not hold a platform thread either
+     *
+     * @param name The thread name
+     * @param task The task of the thread
+     */
+    private void startBackgroundThread(final String name, final Runnable task) {
+        final Thread.Builder builder = isVirtualThreadsEnabled ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        builder.name(name).start(task);
+    }
+
+    /**
+     * @return The snapshot file, or null when snapshots are disabled or the records are local
+     */
+    private Path getSnapshotFile() {
+        if (!isDataFromServer || StringUtils.isBlank(snapshotDirectory)) {
+            return null;
+        }
+        return Path.of(snapshotDirectory, SNAPSHOT_FILE_NAME);
+    }
+
+    /**
+     * @return The generation of the storage object of the records
+     */
+    private Long getSourceGeneration() {
+        return recordMetrics.timeLoadStage(RecordMetrics.METADATA_STAGE,
+                () -> GoogleCloudStorageService.getPublicObjectGeneration(storageHost, bucketName, publicObjectName));
+    }
+
+    /**
+     * Downloads and parses the records and builds their dataset, then merges the newer segments.
+     * Download and parse are streamed together, the time spent waiting for the storage server is the download stage
+     * and the rest of the read is the parse stage. Bucket segments created before the storage object, by their generation,
+     * are already part of its records: they are recorded as applied without being read again. Local segments are always merged.
+     *
+     * @param generation The generation of the storage object to download, or null for the latest one
+     * @return The RecordDataset with the loaded records
+     */
+    private RecordDataset loadDataset(final Long generation) {
+        final RecordDataset.Builder builder = RecordDataset.builder();
+        final SortedMap<String, Long> segments = isSegmentIngestionEnabled() ? listSegments() : Collections.emptySortedMap();
         if (isDataFromServer) {
-            data = getServerRecords().getOutput();
+            final Long sourceGeneration = generation != null ? generation : getSourceGeneration();
+            builder.sourceGeneration(sourceGeneration);
+            if (sourceGeneration != null) {
+                builder.appliedSegments(segments.entrySet().stream()
+                        .filter(segment -> segment.getValue() != null && segment.getValue() <= sourceGeneration)
+                        .map(Map.Entry::getKey)
+                        .toList());
+            }
+            readServerRecords(sourceGeneration, builder);
         } else {
-            data = getLocalRecords().getOutput();
+            readLocalRecords(builder);
         }
-        data.stream()
-                .filter(record -> record.getCreatedOn() == null)
-                .forEach(record -> record.setCreatedOn(Instant.ofEpochSecond(0)));
+        final RecordDataset loadedDataset = recordMetrics.timeLoadStage(RecordMetrics.INDEX_STAGE, builder::build);
+        logger.debug("Loaded dataset version {} with {} records from source generation {}",
+                loadedDataset.getVersion(), loadedDataset.size(), loadedDataset.getSourceGeneration());
+        return mergeSegments(loadedDataset, segments);
+    }
 
-        return data;
+    private static RecordDataset awaitLoad(final CompletableFuture<RecordDataset> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DataManagerInternalException("Exception while loading the records", e.getCause());
+        }
     }
 
     /**
-     * Retrieves the object containing the list of records from the remote storage server
+     * Streams the records of the object stored on the remote storage server into the dataset builder
      *
-     * @return A PersistenceData object with server records
+     * @param generation The generation of the storage object
+     * @param builder The builder of the dataset
      */
-    private PersistenceData getServerRecords() {
-        ObjectMapper objectMapper = DataObjectMapperBuilder.build();
+    private void readServerRecords(final Long generation, final RecordDataset.Builder builder) {
         try {
-            return objectMapper.readValue(GoogleCloudStorageService.downloadPublicObject(bucketName, publicObjectName), new TypeReference<>() {
-            });
+            readRecords(GoogleCloudStorageService.openPublicObject(storageHost, bucketName, publicObjectName, generation), builder);
         } catch (IOException e) {
             throw new DataManagerInternalException("Exception while mapping json storage file to object", e);
         }
     }
 
     /**
-     * Retrieves the object containing the list of records from the local storage server
+     * Streams the records of the local storage file into the dataset builder
      *
-     * @return A PersistenceData object with server records
+     * @param builder The builder of the dataset
      */
-    private PersistenceData getLocalRecords() {
-        ObjectMapper objectMapper = DataObjectMapperBuilder.build();
+    private void readLocalRecords(final RecordDataset.Builder builder) {
         try {
             logger.debug("Get records from json storage file");
-            return objectMapper.readValue(resourceFile.getInputStream(), new TypeReference<>() {
-            });
+            readRecords(resourceFile.getInputStream(), builder);
         } catch (IOException e) {
             throw new DataManagerInternalException("Exception while mapping json storage file to object", e);
         }
     }
+
+    /**
+     * Streams the records of a storage file into the dataset builder, recording the download and parse stages
+     *
+     * @param input The storage file, closed once read
+     * @param builder The builder of the dataset
+     */
+    private void readRecords(final InputStream input, final RecordDataset.Builder builder) throws IOException {
+        final RecordMetrics.ReadTimingInputStream timedInput = new RecordMetrics.ReadTimingInputStream(input);
+        final long startTime = System.nanoTime();
+        RecordStreamReader.read(timedInput, builder::add);
+        final long readNanos = System.nanoTime() - startTime;
+        recordMetrics.recordLoadStage(RecordMetrics.DOWNLOAD_STAGE, timedInput.getReadNanos());
+        recordMetrics.recordLoadStage(RecordMetrics.PARSE_STAGE, Math.max(0, readNanos - timedInput.getReadNanos()));
+    }
 }
@@ -0,0 +1,76 @@
+package com.developer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically refreshes the dataset from the storage server and merges the new segments, on a single background thread.
+ * Every run is delayed by the interval plus a random jitter, so instances started together
+ * do not check the storage object at the same time.
+ */
+@Service
+@ConditionalOnProperty(name = "dataservice.refresh.enabled", havingValue = "true")
+public class DatasetRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetRefresher.class);
+
+    @Autowired
+    DataService dataService;
+
+    @Value("${dataservice.refresh.interval:5m}")
+    Duration interval = Duration.ofMinutes(5);
+
+    @Value("${dataservice.refresh.jitter:30s}")
+    Duration jitter = Duration.ofSeconds(30);
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+                Thread.ofPlatform().name("dataset-refresher").daemon().unstarted(runnable));
+        scheduleNextRefresh();
+        logger.debug("Refresh the dataset every {} with a jitter up to {}", interval, jitter);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Refreshes the dataset, logging failures so that the next run retries, then schedules the next run
+     */
+    void refresh() {
+        try {
+            if (dataService.refresh()) {
+                logger.info("Swapped in dataset version {}", dataService.getLoadedDataset().getVersion());
+            }
+            if (dataService.ingestSegments()) {
+                logger.info("Swapped in dataset version {} with new segments", dataService.getLoadedDataset().getVersion());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Refresh of the dataset failed, the current dataset is kept", e);
+        } finally {
+            if (!scheduler.isShutdown()) {
+                scheduleNextRefresh();
+            }
+        }
+    }
+
+    private void scheduleNextRefresh() {
+        final long jitterMillis = jitter.toMillis() > 0 ? ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1) : 0;
+        scheduler.schedule(this::refresh, interval.toMillis() + jitterMillis, TimeUnit.MILLISECONDS);
+    }
+}
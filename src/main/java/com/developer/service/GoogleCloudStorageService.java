@@ -1,27 +1,88 @@
 package com.developer.service;
 
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 public class GoogleCloudStorageService {
     private static final Logger logger = LoggerFactory.getLogger(GoogleCloudStorageService.class);
+    private static final int READ_CHUNK_SIZE = 4 * 1024 * 1024;
 
     /**
-     * Downloads the object containing the list of records from Google Cloud Storage.
-     * It instantiates an anonymous Google Cloud Storage client, which can only access public files.
+     * Opens a generation of the object containing the list of records from Google Cloud Storage as a stream.
+     * The content is fetched in chunks while it is read, so parsing overlaps the download.
+     * Pinning the generation guarantees the content matches the generation checked before the download.
      *
+     * @param host The storage endpoint, or empty for Google Cloud Storage
      * @param bucketName The name of the Google Cloud Storage bucket
      * @param publicObjectName The name of the public object
-     * @return The byte array representing the downloaded object
+     * @param generation The object generation, or null for the latest one
+     * @return The input stream of the object content, to be closed by the caller
      */
-    public static byte[] downloadPublicObject(String bucketName, String publicObjectName) {
-        Storage storage = StorageOptions.getUnauthenticatedInstance().getService();
-        byte[] content = storage.readAllBytes(bucketName, publicObjectName);
-        logger.debug("Downloaded Google Cloud Storage public object {} from bucket name {}", publicObjectName, bucketName);
-        return content;
+    public static InputStream openPublicObject(String host, String bucketName, String publicObjectName, Long generation) {
+        Storage storage = getStorage(host);
+        ReadChannel reader = storage.reader(BlobId.of(bucketName, publicObjectName, generation));
+        reader.setChunkSize(READ_CHUNK_SIZE);
+        logger.debug("Open Google Cloud Storage public object {} generation {} from bucket name {}", publicObjectName, generation, bucketName);
+        return Channels.newInputStream(reader);
     }
-}
 
+    /**
+     * Retrieves the generation of the public object from its metadata, without downloading its content.
+     * The generation changes every time the object content is replaced.
+     *
+     * @param host The storage endpoint, or empty for Google Cloud Storage
+     * @param bucketName The name of the Google Cloud Storage bucket
+     * @param publicObjectName The name of the public object
+     * @return The object generation, or null when the object does not exist
+     */
+    public static Long getPublicObjectGeneration(String host, String bucketName, String publicObjectName) {
+        Storage storage = getStorage(host);
+        Blob blob = storage.get(BlobId.of(bucketName, publicObjectName), Storage.BlobGetOption.fields(Storage.BlobField.GENERATION));
+        return blob == null ? null : blob.getGeneration();
+    }
 
+    /**
+     * Lists the public objects starting with a prefix with their generation, in ascending name order.
+     * A generation is the creation time of the object content in microseconds since the epoch.
+     *
+     * @param host The storage endpoint, or empty for Google Cloud Storage
+     * @param bucketName The name of the Google Cloud Storage bucket
+     * @param prefix The prefix of the object names
+     * @return The generation of every object by name, sorted by name
+     */
+    public static SortedMap<String, Long> listPublicObjectGenerations(String host, String bucketName, String prefix) {
+        Storage storage = getStorage(host);
+        SortedMap<String, Long> generations = new TreeMap<>();
+        for (Blob blob : storage.list(bucketName, Storage.BlobListOption.prefix(prefix)).iterateAll()) {
+            if (!blob.isDirectory()) {
+                generations.put(blob.getName(), blob.getGeneration());
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Instantiates an anonymous storage client, for Google Cloud Storage or for another endpoint serving its json API,
+     * such as a local stand-in
+     *
+     * @param host The storage endpoint, or empty for Google Cloud Storage
+     * @return The storage client
+     */
+    private static Storage getStorage(String host) {
+        if (StringUtils.isBlank(host)) {
+            return StorageOptions.getUnauthenticatedInstance().getService();
+        }
+        return StorageOptions.getUnauthenticatedInstance().toBuilder().setHost(host).build().getService();
+    }
+}
@@ -0,0 +1,114 @@
+package com.developer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs the filtering and sorting of large queries on a dedicated fork/join pool, splitting them in chunks.
+ * Queries below a number of records keep the sequential path on the request thread, and so do large queries
+ * while the maximum number of parallel queries is running, so concurrent requests share the pool threads
+ * instead of oversubscribing the CPU. Parallel streams and parallel sorts started by the chunks run in the
+ * same pool, never in the common pool.
+ */
+@Service
+public class ParallelQueryExecutor {
+
+    @Value("${dataservice.parallel.enabled:true}")
+    boolean isEnabled = true;
+
+    @Value("${dataservice.parallel.threads:0}")
+    int threads;
+
+    @Value("${dataservice.parallel.min-records:200000}")
+    int minRecords = 200_000;
+
+    @Value("${dataservice.parallel.max-concurrent-queries:0}")
+    int maxConcurrentQueries;
+
+    private final AtomicLong parallelCount = new AtomicLong();
+    private final AtomicLong sequentialCount = new AtomicLong();
+    private volatile ForkJoinPool pool;
+    private volatile Semaphore parallelSlots;
+
+    /**
+     * Computes a result in parallel when the query is large enough and a parallel slot is free,
+     * otherwise on the calling thread
+     *
+     * @param records The number of records the computation goes through
+     * @param sequential The sequential computation
+     * @param parallel The parallel computation, given the number of chunks to split the records in
+     * @return The result of the computation
+     */
+    public <T> T execute(final long records, final Supplier<T> sequential, final IntFunction<T> parallel) {
+        if (!isEnabled || records < Math.max(1, minRecords) || getParallelism() < 2) {
+            return sequential.get();
+        }
+        final ForkJoinPool currentPool = getPool();
+        if (!parallelSlots.tryAcquire()) {
+            sequentialCount.incrementAndGet();
+            return sequential.get();
+        }
+        try {
+            parallelCount.incrementAndGet();
+            return currentPool.submit(() -> parallel.apply(currentPool.getParallelism())).join();
+        } finally {
+            parallelSlots.release();
+        }
+    }
+
+    /**
+     * @return The number of large queries computed in parallel
+     */
+    public long getParallelCount() {
+        return parallelCount.get();
+    }
+
+    /**
+     * @return The number of large queries computed sequentially because every parallel slot was taken
+     */
+    public long getSequentialCount() {
+        return sequentialCount.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        final ForkJoinPool currentPool = pool;
+        if (currentPool != null) {
+            currentPool.shutdownNow();
+        }
+    }
+
+    private int getParallelism() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Creates the pool on the first parallel query, so services that never see a large query start no thread
+     */
+    private ForkJoinPool getPool() {
+        ForkJoinPool currentPool = pool;
+        if (currentPool == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    final int parallelism = getParallelism();
+                    parallelSlots = new Semaphore(maxConcurrentQueries > 0 ? maxConcurrentQueries : Math.max(1, parallelism / 4));
+                    pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("record-query-" + thread.getPoolIndex());
+                        return thread;
+                    }, null, false);
+                }
+                currentPool = pool;
+            }
+        }
+        return currentPool;
+    }
+}
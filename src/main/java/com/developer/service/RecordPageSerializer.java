@@ -0,0 +1,234 @@
+package com.developer.service;
+
+import com.developer.controller.model.RecordStats;
+import com.developer.persistence.store.RecordDataset;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes pages of records as json, splicing the json of the served records, kept in a bounded cache per dataset version,
+ * into the page envelope. The output is identical to the serialization of a RecordPage.
+ * It also keeps a bounded LRU cache of gzip compressed pages for the hottest queries.
+ */
+@Service
+public class RecordPageSerializer {
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long FRAGMENT_BYTES = 24;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${dataservice.serialization.fragments.enabled:true}")
+    boolean isFragmentCacheEnabled = true;
+
+    @Value("${dataservice.serialization.fragments.max-entries:100000}")
+    int maxFragmentEntries = 100_000;
+
+    @Value("${dataservice.serialization.gzip.max-entries:128}")
+    int maxGzipEntries = 128;
+
+    private volatile Fragments fragments;
+
+    private final LinkedHashMap<Object, byte[]> gzipPages = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong gzipHitCount = new AtomicLong();
+    private final AtomicLong gzipMissCount = new AtomicLong();
+    private long gzipDatasetVersion;
+
+    /**
+     * Writes a page of records as json
+     *
+     * @param dataset The dataset of records
+     * @param totalPages The number of pages
+     * @param totalRecords The number of filtered records
+     * @param rows The row positions of the page, in order
+     * @param nextCursor The cursor of the next page, or null
+     * @param facets The aggregates of the filtered records, or null when they are not requested
+     * @return The UTF-8 json of the page
+     */
+    public byte[] serialize(final RecordDataset dataset, final int totalPages, final int totalRecords,
+                            final int[] rows, final String nextCursor, final RecordStats facets) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(256 + rows.length * 256);
+        final Fragments datasetFragments = getFragments(dataset);
+        try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeNumberField("totalPages", totalPages);
+            generator.writeNumberField("totalRecords", totalRecords);
+            generator.writeArrayFieldStart("items");
+            // The records are written as raw bytes after the buffered envelope, the generator then closes the array
+            generator.flush();
+            for (int position = 0; position < rows.length; position++) {
+                if (position > 0) {
+                    output.write(',');
+                }
+                output.writeBytes(getFragment(datasetFragments, dataset, rows[position]));
+            }
+            generator.writeEndArray();
+            if (nextCursor != null) {
+                generator.writeStringField("nextCursor", nextCursor);
+            }
+            if (facets != null) {
+                generator.writeObjectField("facets", facets);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns the gzip compressed json of a page, compressing and caching it on a miss.
+     * Entries belong to a dataset version and the cache is cleared as soon as a newer dataset is queried.
+     *
+     * @param dataset The dataset of records
+     * @param key The query and page of the json
+     * @param page The computation of the uncompressed json
+     * @return The gzip compressed json
+     */
+    public byte[] gzip(final RecordDataset dataset, final Object key, final Supplier<byte[]> page) {
+        if (maxGzipEntries <= 0) {
+            return compress(page.get());
+        }
+        synchronized (gzipPages) {
+            if (gzipDatasetVersion < dataset.getVersion()) {
+                gzipPages.clear();
+                gzipDatasetVersion = dataset.getVersion();
+            }
+            final byte[] compressedPage = gzipPages.get(key);
+            if (compressedPage != null && gzipDatasetVersion == dataset.getVersion()) {
+                gzipHitCount.incrementAndGet();
+                return compressedPage;
+            }
+        }
+        gzipMissCount.incrementAndGet();
+        final byte[] compressedPage = compress(page.get());
+        synchronized (gzipPages) {
+            if (gzipDatasetVersion == dataset.getVersion()) {
+                gzipPages.put(key, compressedPage);
+                final Iterator<Map.Entry<Object, byte[]>> iterator = gzipPages.entrySet().iterator();
+                while (gzipPages.size() > maxGzipEntries && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        return compressedPage;
+    }
+
+    /**
+     * @return The number of compressed pages answered from the cache
+     */
+    public long getGzipHitCount() {
+        return gzipHitCount.get();
+    }
+
+    /**
+     * @return The number of pages compressed because they were not cached
+     */
+    public long getGzipMissCount() {
+        return gzipMissCount.get();
+    }
+
+    /**
+     * @return The number of cached compressed pages
+     */
+    public int getGzipCacheSize() {
+        synchronized (gzipPages) {
+            return gzipPages.size();
+        }
+    }
+
+    private static byte[] compress(final byte[] content) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Estimates the heap size of the cached json of the records of a dataset
+     *
+     * @param dataset The dataset of records
+     * @return The approximate heap size in bytes, 0 when no json is cached for this dataset version
+     */
+    public long estimateFragmentHeapBytes(final RecordDataset dataset) {
+        final Fragments currentFragments = fragments;
+        if (currentFragments == null || currentFragments.version() != dataset.getVersion()) {
+            return 0;
+        }
+        return ARRAY_HEADER_BYTES + (long) Integer.BYTES * currentFragments.values().length() + currentFragments.heapBytes().get();
+    }
+
+    /**
+     * Returns the record fragments of the dataset, replacing the fragments of a previous dataset version,
+     * or null when fragments are disabled or the dataset was already replaced by a newer one
+     */
+    private Fragments getFragments(final RecordDataset dataset) {
+        if (!isFragmentCacheEnabled || maxFragmentEntries <= 0) {
+            return null;
+        }
+        final Fragments currentFragments = fragments;
+        if (currentFragments != null && currentFragments.version() >= dataset.getVersion()) {
+            return currentFragments.version() == dataset.getVersion() ? currentFragments : null;
+        }
+        synchronized (this) {
+            if (fragments == null || fragments.version() < dataset.getVersion()) {
+                fragments = new Fragments(dataset.getVersion(),
+                        new AtomicReferenceArray<>(Math.max(1, Math.min(maxFragmentEntries, dataset.size()))), new AtomicLong());
+            }
+            return fragments.version() == dataset.getVersion() ? fragments : null;
+        }
+    }
+
+    /**
+     * Returns the UTF-8 json of a record, serializing it on a miss. The cache is direct mapped: every row has a single slot,
+     * and serializing a row replaces the row cached in its slot, so the cache only holds rows that are served.
+     */
+    private byte[] getFragment(final Fragments datasetFragments, final RecordDataset dataset, final int row) throws IOException {
+        if (datasetFragments == null) {
+            return objectMapper.writeValueAsBytes(dataset.getRecord(row));
+        }
+        final int slot = row % datasetFragments.values().length();
+        final Fragment fragment = datasetFragments.values().get(slot);
+        if (fragment != null && fragment.row() == row) {
+            return fragment.json();
+        }
+        final Fragment newFragment = new Fragment(row, objectMapper.writeValueAsBytes(dataset.getRecord(row)));
+        final Fragment replacedFragment = datasetFragments.values().getAndSet(slot, newFragment);
+        datasetFragments.heapBytes().addAndGet(heapBytes(newFragment) - heapBytes(replacedFragment));
+        return newFragment.json();
+    }
+
+    private static long heapBytes(final Fragment fragment) {
+        return fragment == null ? 0 : FRAGMENT_BYTES + ARRAY_HEADER_BYTES + fragment.json().length;
+    }
+
+    /**
+     * The cached json of the records of a dataset version, with its approximate heap size
+     */
+    private record Fragments(long version, AtomicReferenceArray<Fragment> values, AtomicLong heapBytes) {
+    }
+
+    /**
+     * The UTF-8 json of the record of a row
+     */
+    private record Fragment(int row, byte[] json) {
+    }
+}
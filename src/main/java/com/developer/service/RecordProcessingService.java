@@ -3,15 +3,33 @@ package com.developer.service;
 import com.developer.controller.model.OrderEnum;
 import com.developer.controller.model.Record;
 import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordAggregates;
+import com.developer.persistence.store.RecordCursor;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordRanges;
+import com.developer.persistence.store.RecordSort;
+import com.developer.persistence.store.SortIndex;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class RecordProcessingService {
+    private static final int TOP_K_MAX_RECORDS = 500;
+    private static final int TOP_K_MIN_RATIO = 4;
+
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
 
      /**
      * Filters the list of records by name
@@ -90,8 +108,392 @@ public class RecordProcessingService {
      * @return A paginated list of Record objects
      */
     public List<Record> getRecordsPage(final List<Record> recordData, final int pageSize, final int page) {
-        final int beginIndex = Math.max(0, pageSize * (page -1));
-        final int endIndex = Math.min(recordData.size(), pageSize * page);
+        final int beginIndex = (int) Math.min(recordData.size(), Math.max(0, (long) pageSize * (page - 1)));
+        final int endIndex = (int) Math.min(recordData.size(), (long) pageSize * page);
         return recordData.subList(beginIndex, endIndex);
     }
+
+    /**
+     * Filters the rows of a dataset by name, using the trigram index of the name dictionary
+     *
+     * @param dataset The dataset of records
+     * @param name The name to filter by
+     * @return A new bitmap of the matching row positions
+     */
+    public BitSet nameFilter(final RecordDataset dataset, final String name) {
+        return parallelQueryExecutor.execute(dataset.getNameIndex().nameCount(),
+                () -> dataset.getNameIndex().findRows(name, dataset.size(), false),
+                chunks -> dataset.getNameIndex().findRows(name, dataset.size(), true));
+    }
+
+    /**
+     * Filters the rows of a dataset by any of the given statuses, combining the status bitmaps with a word-wise OR.
+     * A single status returns the shared dataset bitmap, which must not be modified.
+     *
+     * @param dataset The dataset of records
+     * @param statuses The statuses to filter by
+     * @return A bitmap of the matching row positions
+     */
+    public BitSet statusFilter(final RecordDataset dataset, final List<StatusEnum> statuses) {
+        if (statuses.size() == 1) {
+            return dataset.getStatusIndex(statuses.get(0));
+        }
+        final BitSet rows = new BitSet(dataset.size());
+        for (StatusEnum status : statuses) {
+            rows.or(dataset.getStatusIndex(status));
+        }
+        return rows;
+    }
+
+    /**
+     * Filters the rows of a dataset by creation date and delta ranges. Every range is resolved by binary search
+     * to a contiguous span of the sort index of its field, instead of testing every record.
+     *
+     * @param dataset The dataset of records
+     * @param ranges The range filters
+     * @return A new bitmap of the matching row positions, or null when no range filter applies
+     */
+    public BitSet rangeFilter(final RecordDataset dataset, final RecordRanges ranges) {
+        return ranges.findRows(dataset);
+    }
+
+    /**
+     * Aggregates the records matching the filters: the number of records of every status among the records matching
+     * the other filters, whatever the status filter, and the delta aggregates of the records matching every filter.
+     * Filtered records are aggregated in a single pass over the rows matching the other filters, unfiltered requests
+     * return the aggregates computed when the dataset was built.
+     *
+     * @param dataset The dataset of records
+     * @param candidateRows The bitmap of the rows matching the filters other than the status filter, or null when none applies
+     * @param statuses The statuses to filter by, possibly null or empty
+     * @return The aggregates of the filtered records
+     */
+    public RecordAggregates aggregate(final RecordDataset dataset, final BitSet candidateRows, final List<StatusEnum> statuses) {
+        return RecordAggregates.of(dataset, candidateRows, statuses);
+    }
+
+    /**
+     * Collects the rows of the requested page in the order of one or more fields.
+     * Unfiltered requests jump straight to the first record of the page in the precomputed sort index.
+     * Filtered requests pick the cheapest strategy for the size of the filtered set: walking the sort index
+     * until the page is complete, selecting the first records of the page with a bounded heap,
+     * or sorting every filtered record for deep pages. Sorts by several fields use the sort index of their
+     * packed keys, so every strategy compares a single primitive key per record.
+     *
+     * @param dataset The dataset of records
+     * @param sort The sort criteria
+     * @param filter The bitmap of filtered rows, or null when the records are not filtered
+     * @param pageSize The number of records per page
+     * @param page The page number
+     * @return The row positions of the page, in order
+     */
+    public int[] getSortedRowsPage(final RecordDataset dataset, final RecordSort sort,
+                                   final BitSet filter, final int pageSize, final int page) {
+        final int filteredRecords = filter == null ? dataset.size() : filter.cardinality();
+        // Page bounds are computed in long and clamped to the filtered records, so deep pages are empty rather than overflowing
+        final long firstIndex = Math.max(0, (long) pageSize * (page - 1));
+        if (firstIndex >= filteredRecords) {
+            return new int[0];
+        }
+        final int beginIndex = (int) firstIndex;
+        final int endIndex = (int) Math.min(filteredRecords, (long) pageSize * page);
+        if (filter == null) {
+            final int[] pageRows = new int[endIndex - beginIndex];
+            final PrimitiveIterator.OfInt rows = dataset.getSortIndex(sort).iterator(sort.getOrder(), beginIndex);
+            for (int index = 0; index < pageRows.length && rows.hasNext(); index++) {
+                pageRows[index] = rows.nextInt();
+            }
+            return pageRows;
+        }
+        final long estimatedWalkLength = (long) endIndex * dataset.size() / Math.max(1, filteredRecords);
+        final long[] sortedKeys;
+        if (estimatedWalkLength <= filteredRecords) {
+            return walkSortedRowsPage(dataset, sort, filter, beginIndex, endIndex);
+        } else if (endIndex <= TOP_K_MAX_RECORDS && (long) endIndex * TOP_K_MIN_RATIO <= filteredRecords) {
+            sortedKeys = selectFirstSortKeys(dataset, sort, filter, endIndex);
+        } else {
+            sortedKeys = sortAllSortKeys(dataset, sort, filter, filteredRecords);
+        }
+        final int[] pageRows = new int[Math.max(0, Math.min(endIndex, sortedKeys.length) - beginIndex)];
+        for (int index = 0; index < pageRows.length; index++) {
+            pageRows[index] = (int) sortedKeys[beginIndex + index];
+        }
+        return pageRows;
+    }
+
+    /**
+     * Iterates every filtered row of a dataset in sort order by walking the sort index, so rows are produced
+     * one at a time without being collected or sorted
+     *
+     * @param dataset The dataset of records
+     * @param sort The sort criteria
+     * @param filter The bitmap of the filtered rows, or null for every row
+     * @return An iterator of the sorted row positions
+     */
+    public PrimitiveIterator.OfInt iterateSortedRows(final RecordDataset dataset, final RecordSort sort,
+                                                     final BitSet filter) {
+        final PrimitiveIterator.OfInt rows = dataset.getSortIndex(sort).iterator(sort.getOrder(), 0);
+        if (filter == null) {
+            return rows;
+        }
+        return new PrimitiveIterator.OfInt() {
+            private int nextRow = findNextRow();
+
+            @Override
+            public boolean hasNext() {
+                return nextRow >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (nextRow < 0) {
+                    throw new NoSuchElementException();
+                }
+                final int row = nextRow;
+                nextRow = findNextRow();
+                return row;
+            }
+
+            private int findNextRow() {
+                while (rows.hasNext()) {
+                    final int row = rows.nextInt();
+                    if (filter.get(row)) {
+                        return row;
+                    }
+                }
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * Orders every filtered row of a dataset by one or more fields.
+     * Small filtered sets sort their packed sort keys, large ones walk the whole sort index,
+     * in consecutive ranges walked in parallel for large datasets.
+     *
+     * @param dataset The dataset of records
+     * @param sort The sort criteria
+     * @param filter The bitmap of filtered rows
+     * @return The ordered row positions
+     */
+    public int[] getSortedRows(final RecordDataset dataset, final RecordSort sort, final BitSet filter) {
+        final int filteredRecords = filter.cardinality();
+        if ((long) filteredRecords * (64 - Long.numberOfLeadingZeros(filteredRecords)) < dataset.size()) {
+            final long[] sortedKeys = sortAllSortKeys(dataset, sort, filter, filteredRecords);
+            final int[] sortedRows = new int[filteredRecords];
+            for (int position = 0; position < filteredRecords; position++) {
+                sortedRows[position] = (int) sortedKeys[position];
+            }
+            return sortedRows;
+        }
+        return parallelQueryExecutor.execute(dataset.size(),
+                () -> walkSortedRows(dataset.getSortIndex(sort), sort.getOrder(), filter, 0, dataset.size(), filteredRecords),
+                chunks -> walkSortedRowsInChunks(dataset.getSortIndex(sort), sort.getOrder(), filter, filteredRecords, chunks));
+    }
+
+    /**
+     * Paginates ordered rows
+     *
+     * @param sortedRows The ordered row positions
+     * @param pageSize The number of rows per page
+     * @param page The page number
+     * @return The row positions of the page
+     */
+    public int[] getRowsPage(final int[] sortedRows, final int pageSize, final int page) {
+        final int beginIndex = (int) Math.min(sortedRows.length, (long) pageSize * (page - 1));
+        final int endIndex = (int) Math.min(sortedRows.length, (long) pageSize * page);
+        return Arrays.copyOfRange(sortedRows, beginIndex, endIndex);
+    }
+
+    /**
+     * Collects the rows of the page following a keyset cursor.
+     * The position of the cursor record is found by binary search in the sort index,
+     * then the index is walked until the page is complete.
+     *
+     * @param dataset The dataset of records
+     * @param sort The sort criteria
+     * @param filter The bitmap of filtered rows, or null when the records are not filtered
+     * @param pageSize The number of records per page
+     * @param cursor The cursor of the last record of the previous page
+     * @return The row positions of the page, in order
+     */
+    public int[] getSortedRowsPageAfter(final RecordDataset dataset, final RecordSort sort,
+                                        final BitSet filter, final int pageSize, final RecordCursor cursor) {
+        if (!cursor.getSort().equals(sort)) {
+            throw new IllegalArgumentException("The cursor was created for different sort fields or orders");
+        }
+        final int[] pageRows = new int[pageSize];
+        int pageRowCount = 0;
+        final PrimitiveIterator.OfInt rows = dataset.getSortIndex(sort).iterator(sort.getOrder(), cursor.resumePosition(dataset));
+        while (pageRowCount < pageSize && rows.hasNext()) {
+            final int row = rows.nextInt();
+            if (filter == null || filter.get(row)) {
+                pageRows[pageRowCount++] = row;
+            }
+        }
+        return Arrays.copyOf(pageRows, pageRowCount);
+    }
+
+    /**
+     * Walks the sort index, stopping as soon as the page is complete
+     */
+    private int[] walkSortedRowsPage(final RecordDataset dataset, final RecordSort sort,
+                                     final BitSet filter, final int beginIndex, final int endIndex) {
+        final int[] pageRows = new int[endIndex - beginIndex];
+        final PrimitiveIterator.OfInt rows = dataset.getSortIndex(sort).iterator(sort.getOrder(), 0);
+        int matchingRecords = 0;
+        while (matchingRecords < endIndex && rows.hasNext()) {
+            final int row = rows.nextInt();
+            if (filter.get(row)) {
+                if (matchingRecords >= beginIndex) {
+                    pageRows[matchingRecords - beginIndex] = row;
+                }
+                matchingRecords++;
+            }
+        }
+        return Arrays.copyOf(pageRows, Math.max(0, matchingRecords - beginIndex));
+    }
+
+    /**
+     * Collects the filtered rows of a range of positions of the sort index, in sort order
+     */
+    private static int[] walkSortedRows(final SortIndex sortIndex, final OrderEnum order, final BitSet filter,
+                                        final int fromPosition, final int toPosition, final int capacity) {
+        int[] sortedRows = new int[Math.max(0, capacity)];
+        int rowCount = 0;
+        final PrimitiveIterator.OfInt rows = sortIndex.iterator(order, fromPosition);
+        for (int position = fromPosition; position < toPosition && rows.hasNext(); position++) {
+            final int row = rows.nextInt();
+            if (filter.get(row)) {
+                if (rowCount == sortedRows.length) {
+                    sortedRows = Arrays.copyOf(sortedRows, Math.max(16, rowCount * 2));
+                }
+                sortedRows[rowCount++] = row;
+            }
+        }
+        return rowCount == sortedRows.length ? sortedRows : Arrays.copyOf(sortedRows, rowCount);
+    }
+
+    /**
+     * Walks consecutive ranges of the sort index in parallel, then concatenates their filtered rows,
+     * which are in sort order since the ranges are
+     */
+    private static int[] walkSortedRowsInChunks(final SortIndex sortIndex, final OrderEnum order, final BitSet filter,
+                                                final int filteredRecords, final int chunks) {
+        final int size = sortIndex.size();
+        final int chunkLength = (size + chunks - 1) / chunks;
+        final int[][] chunkRows = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int fromPosition = (int) Math.min(size, (long) chunk * chunkLength);
+            final int toPosition = (int) Math.min(size, (long) fromPosition + chunkLength);
+            // Sized for an even spread of the filtered rows, a skewed chunk grows its buffer
+            final int capacity = (int) ((long) filteredRecords * (toPosition - fromPosition) / Math.max(1, size)) + 16;
+            chunkRows[chunk] = walkSortedRows(sortIndex, order, filter, fromPosition, toPosition, capacity);
+        });
+        final int[] sortedRows = new int[filteredRecords];
+        int rowCount = 0;
+        for (int[] rows : chunkRows) {
+            System.arraycopy(rows, 0, sortedRows, rowCount, rows.length);
+            rowCount += rows.length;
+        }
+        return sortedRows;
+    }
+
+    /**
+     * Selects the smallest sort keys of the filtered rows with a bounded max-heap, returned in ascending order
+     */
+    private long[] selectFirstSortKeys(final RecordDataset dataset, final RecordSort sort,
+                                       final BitSet filter, final int limit) {
+        final SortIndex sortIndex = dataset.getSortIndex(sort);
+        final long[] heap = new long[limit];
+        int heapSize = 0;
+        for (int row = filter.nextSetBit(0); row >= 0; row = filter.nextSetBit(row + 1)) {
+            final long key = sortIndex.sortKey(row, sort.getOrder());
+            if (heapSize < limit) {
+                heap[heapSize] = key;
+                siftUp(heap, heapSize++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+        final long[] sortedKeys = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    /**
+     * Sorts the sort keys of every filtered row, collecting and sorting them in parallel for large filtered sets
+     */
+    private long[] sortAllSortKeys(final RecordDataset dataset, final RecordSort sort,
+                                   final BitSet filter, final int filteredRecords) {
+        final SortIndex sortIndex = dataset.getSortIndex(sort);
+        return parallelQueryExecutor.execute(filteredRecords, () -> {
+            final long[] sortedKeys = new long[filteredRecords];
+            collectSortKeys(sortIndex, sort.getOrder(), filter, 0, dataset.size(), sortedKeys, 0);
+            Arrays.sort(sortedKeys);
+            return sortedKeys;
+        }, chunks -> {
+            // Every chunk of rows writes its keys at the offset given by the filtered rows of the previous chunks
+            final int chunkLength = (dataset.size() + chunks - 1) / chunks;
+            final int[] offsets = new int[chunks + 1];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                final int fromRow = (int) Math.min(dataset.size(), (long) chunk * chunkLength);
+                final int toRow = (int) Math.min(dataset.size(), (long) fromRow + chunkLength);
+                offsets[chunk + 1] = offsets[chunk] + filter.get(fromRow, toRow).cardinality();
+            }
+            final long[] sortedKeys = new long[filteredRecords];
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                final int fromRow = (int) Math.min(dataset.size(), (long) chunk * chunkLength);
+                collectSortKeys(sortIndex, sort.getOrder(), filter, fromRow, (int) Math.min(dataset.size(), (long) fromRow + chunkLength),
+                        sortedKeys, offsets[chunk]);
+            });
+            Arrays.parallelSort(sortedKeys);
+            return sortedKeys;
+        });
+    }
+
+    /**
+     * Writes the sort keys of the filtered rows of a range of rows, from an offset of the keys
+     */
+    private static void collectSortKeys(final SortIndex sortIndex, final OrderEnum order, final BitSet filter,
+                                        final int fromRow, final int toRow, final long[] keys, final int offset) {
+        int position = offset;
+        for (int row = filter.nextSetBit(fromRow); row >= 0 && row < toRow; row = filter.nextSetBit(row + 1)) {
+            keys[position++] = sortIndex.sortKey(row, order);
+        }
+    }
+
+    private static void siftUp(final long[] heap, int position) {
+        final long key = heap[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (heap[parent] >= key) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = key;
+    }
+
+    private static void siftDown(final long[] heap, final int heapSize) {
+        final long key = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (key >= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = key;
+    }
 }
@@ -0,0 +1,167 @@
+package com.developer.service;
+
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.NameIndex;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordRanges;
+import com.developer.persistence.store.RecordSort;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of the ordered rows matching a normalized filter and sort query.
+ * Requests for different pages of the same query slice the cached rows instead of filtering and sorting again.
+ * Entries belong to a dataset version and the cache is cleared as soon as a newer dataset is queried.
+ */
+@Service
+public class RecordQueryCache {
+    private static final Logger logger = LoggerFactory.getLogger(RecordQueryCache.class);
+
+    @Value("${dataservice.query-cache.enabled:true}")
+    boolean isEnabled = true;
+
+    @Value("${dataservice.query-cache.max-entries:256}")
+    int maxEntries = 256;
+
+    @Value("${dataservice.query-cache.max-rows:2000000}")
+    long maxRows = 2_000_000;
+
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private long datasetVersion;
+    private long cachedRows;
+
+    /**
+     * Returns the cached ordered rows of a query, computing and caching them on a miss
+     *
+     * @param dataset The dataset the rows belong to
+     * @param key The normalized query
+     * @param loader The computation of the ordered rows
+     * @return The ordered row positions matching the query
+     */
+    public int[] get(final RecordDataset dataset, final Key key, final Supplier<int[]> loader) {
+        if (!isEnabled) {
+            return loader.get();
+        }
+        synchronized (entries) {
+            invalidateIfStale(dataset);
+            final int[] rows = entries.get(key);
+            if (rows != null) {
+                hitCount.incrementAndGet();
+                return rows;
+            }
+        }
+        missCount.incrementAndGet();
+        final int[] rows = loader.get();
+        synchronized (entries) {
+            if (datasetVersion == dataset.getVersion() && rows.length <= maxRows) {
+                final int[] previousRows = entries.put(key, rows);
+                cachedRows += rows.length - (previousRows == null ? 0 : previousRows.length);
+                evict();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return Whether query results are cached
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return The number of queries answered from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return The number of queries computed because they were not cached
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return The number of cached queries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void invalidateIfStale(final RecordDataset dataset) {
+        if (datasetVersion == dataset.getVersion()) {
+            return;
+        }
+        if (datasetVersion > dataset.getVersion()) {
+            // A request still running on the previous dataset, the newer entries must be kept
+            return;
+        }
+        logger.debug("Clear {} cached queries of dataset version {}", entries.size(), datasetVersion);
+        entries.clear();
+        cachedRows = 0;
+        datasetVersion = dataset.getVersion();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<Key, int[]>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || cachedRows > maxRows) && iterator.hasNext()) {
+            cachedRows -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Normalized filter and sort criteria of a query, regardless of the page requested
+     */
+    @EqualsAndHashCode
+    @ToString
+    public static class Key {
+        private final String foldedName;
+        private final Set<StatusEnum> statuses;
+        private final RecordRanges ranges;
+        private final RecordSort sort;
+
+        private Key(final String foldedName, final Set<StatusEnum> statuses, final RecordRanges ranges, final RecordSort sort) {
+            this.foldedName = foldedName;
+            this.statuses = statuses;
+            this.ranges = ranges;
+            this.sort = sort;
+        }
+
+        /**
+         * Creates the normalized key of a query.
+         * Names are case folded the way they are compared, and statuses are deduplicated regardless of their order.
+         *
+         * @param name The name filter, possibly empty
+         * @param statuses The status filter, possibly null
+         * @param ranges The creation date and delta range filters
+         * @param sort The normalized sort criteria
+         * @return The query key
+         */
+        public static Key of(final String name, final List<StatusEnum> statuses, final RecordRanges ranges, final RecordSort sort) {
+            final Set<StatusEnum> statusSet = statuses == null || statuses.isEmpty()
+                    ? EnumSet.noneOf(StatusEnum.class)
+                    : EnumSet.copyOf(statuses);
+            return new Key(name == null ? "" : NameIndex.fold(name), statusSet, ranges == null ? RecordRanges.NONE : ranges, sort);
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.developer.controller;
 
 import ch.qos.logback.classic.Logger;
+import com.developer.actuator.RecordMetrics;
+import com.developer.controller.model.DeltaStats;
 import com.developer.controller.model.Record;
 import com.developer.controller.model.RecordPage;
+import com.developer.controller.model.RecordStats;
 import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordDataset;
 import com.developer.service.DataService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +25,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -28,8 +40,13 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -48,6 +65,9 @@ public class RecordControllerTest {
     @Autowired
     private TestRestTemplate testRestTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockitoBean
     private DataService dataService;
 
@@ -68,7 +88,7 @@ public class RecordControllerTest {
                 new Record(4256L, "quizzical_yalow", Instant.now().truncatedTo(ChronoUnit.SECONDS), StatusEnum.CANCELED, "Porro consectetur magnam modi neque sit modi.", 3254L)
         );
 
-        when(dataService.getRecords()).thenReturn(recordsResponse);
+        when(dataService.getDataset()).thenReturn(RecordDataset.of(recordsResponse));
     }
 
     @AfterEach
@@ -98,4 +118,203 @@ public class RecordControllerTest {
 
         assertEquals(recordPage, objectMapper.readValue(actualRecordsResponse, RecordPage.class));
     }
+
+    @Test
+    void test_getRecords_when_multiple_status_params_should_find_data() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String urlTemplate = "http://localhost:{0,number,#}/api/records?status=COMPLETED&status=ERROR";
+        String url = MessageFormat.format(urlTemplate, port);
+        String actualRecordsResponse = this.testRestTemplate.getForObject(url, String.class);
+        RecordPage recordPage = new RecordPage(1, 2, expectedResponse.subList(0, 2));
+
+        assertEquals(recordPage, objectMapper.readValue(actualRecordsResponse, RecordPage.class));
+    }
+
+    @Test
+    void test_getRecords_when_crawling_with_cursor_should_end_on_exactly_full_last_page() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        List<Record> crawledRecords = new ArrayList<>();
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records?pageSize=1", port);
+        RecordPage recordPage = objectMapper.readValue(this.testRestTemplate.getForObject(url, String.class), RecordPage.class);
+        crawledRecords.addAll(recordPage.getItems());
+        while (recordPage.getNextCursor() != null) {
+            recordPage = objectMapper.readValue(this.testRestTemplate.getForObject(url + "&cursor={cursor}", String.class, recordPage.getNextCursor()), RecordPage.class);
+            assertEquals(1, recordPage.getItems().size());
+            crawledRecords.addAll(recordPage.getItems());
+        }
+        assertEquals(expectedResponse, crawledRecords);
+
+        String batchUrl = MessageFormat.format("http://localhost:{0,number,#}/api/records/batch", port);
+        String firstPage = this.testRestTemplate.getForObject(url, String.class);
+        String cursor = objectMapper.readValue(firstPage, RecordPage.class).getNextCursor();
+        List<RecordPage> batchPages = objectMapper.readValue(this.testRestTemplate.postForObject(batchUrl,
+                List.of(Map.of("pageSize", 2, "cursor", cursor)), String.class), new TypeReference<List<RecordPage>>() { });
+        assertEquals(expectedResponse.subList(1, 3), batchPages.getFirst().getItems());
+        assertNull(batchPages.getFirst().getNextCursor());
+    }
+
+    @Test
+    void test_getRecords_when_several_sort_fields_should_sort_by_each_field() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String urlTemplate = "http://localhost:{0,number,#}/api/records?sortBy=status,createdOn&sortOrder=asc,desc";
+        String url = MessageFormat.format(urlTemplate, port);
+        String actualRecordsResponse = this.testRestTemplate.getForObject(url, String.class);
+        RecordPage recordPage = new RecordPage(1, 3, List.of(expectedResponse.get(0), expectedResponse.get(2), expectedResponse.get(1)));
+
+        assertEquals(recordPage, objectMapper.readValue(actualRecordsResponse, RecordPage.class));
+    }
+
+    @Test
+    void test_getRecords_when_range_params_should_find_data_in_ranges() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String urlTemplate = "http://localhost:{0,number,#}/api/records?createdFrom=1970-01-01T00:00:00Z&createdTo=2100-01-01T00:00:00Z&deltaMin=3000&deltaMax=6573&sortBy=id&sortOrder=asc";
+        String url = MessageFormat.format(urlTemplate, port);
+        String actualRecordsResponse = this.testRestTemplate.getForObject(url, String.class);
+        RecordPage recordPage = new RecordPage(1, 2, List.of(expectedResponse.get(0), expectedResponse.get(2)));
+        assertEquals(recordPage, objectMapper.readValue(actualRecordsResponse, RecordPage.class));
+
+        String emptyUrl = MessageFormat.format("http://localhost:{0,number,#}/api/records?createdTo=1970-01-01T00:00:00Z", port);
+        String emptyRecordsResponse = this.testRestTemplate.getForObject(emptyUrl, String.class);
+        assertEquals(new RecordPage(0, 0, List.of()), objectMapper.readValue(emptyRecordsResponse, RecordPage.class));
+    }
+
+    @Test
+    void test_getRecords_when_facets_requested_should_aggregate_filtered_records() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String urlTemplate = "http://localhost:{0,number,#}/api/records?status=COMPLETED&status=ERROR&facets=status,delta";
+        String url = MessageFormat.format(urlTemplate, port);
+        String actualRecordsResponse = this.testRestTemplate.getForObject(url, String.class);
+        RecordStats facets = new RecordStats(null, Map.of(StatusEnum.COMPLETED, 1, StatusEnum.CANCELED, 1, StatusEnum.ERROR, 1),
+                new DeltaStats(2, 8729L, 2156L, 6573L, Map.of("p50", 2156L, "p90", 6573L, "p95", 6573L, "p99", 6573L)));
+        RecordPage recordPage = new RecordPage(1, 2, expectedResponse.subList(0, 2), null, facets);
+
+        assertEquals(recordPage, objectMapper.readValue(actualRecordsResponse, RecordPage.class));
+    }
+
+    @Test
+    void test_getRecordStats_should_aggregate_filtered_records() {
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records/stats", port);
+        RecordStats stats = new RecordStats(3, Map.of(StatusEnum.COMPLETED, 1, StatusEnum.CANCELED, 1, StatusEnum.ERROR, 1),
+                new DeltaStats(3, 11983L, 2156L, 6573L, Map.of("p50", 3254L, "p90", 6573L, "p95", 6573L, "p99", 6573L)));
+        assertEquals(stats, this.testRestTemplate.getForObject(url, RecordStats.class));
+
+        String filteredUrl = MessageFormat.format("http://localhost:{0,number,#}/api/records/stats?name=galileo&status=CANCELED", port);
+        RecordStats filteredStats = new RecordStats(0, Map.of(StatusEnum.COMPLETED, 0, StatusEnum.CANCELED, 0, StatusEnum.ERROR, 1),
+                new DeltaStats(0, 0L, null, null, null));
+        assertEquals(filteredStats, this.testRestTemplate.getForObject(filteredUrl, RecordStats.class));
+    }
+
+    @Test
+    void test_getRecordsBatch_should_return_page_of_every_query() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records/batch", port);
+        List<Map<String, Object>> queries = List.of(
+                Map.of("status", List.of("completed", "error")),
+                Map.of("name", "a", "page", 3, "pageSize", 1),
+                Map.of("sortBy", List.of("delta"), "sortOrder", List.of("desc"), "facets", List.of("status")));
+        String actualRecordsResponse = this.testRestTemplate.postForObject(url, queries, String.class);
+        List<RecordPage> recordPages = List.of(
+                new RecordPage(1, 2, expectedResponse.subList(0, 2)),
+                new RecordPage(3, 3, List.of(expectedResponse.get(2))),
+                new RecordPage(1, 3, List.of(expectedResponse.get(0), expectedResponse.get(2), expectedResponse.get(1)), null,
+                        new RecordStats(null, Map.of(StatusEnum.COMPLETED, 1, StatusEnum.CANCELED, 1, StatusEnum.ERROR, 1), null)));
+
+        assertEquals(recordPages, objectMapper.readValue(actualRecordsResponse, new TypeReference<List<RecordPage>>() {}));
+    }
+
+    @Test
+    void test_getRecordsBatch_when_page_size_too_large_should_return_bad_request() {
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records/batch", port);
+        ResponseEntity<String> response = this.testRestTemplate.postForEntity(url, List.of(Map.of("pageSize", 101)), String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void test_getRecordsBatch_when_cross_origin_preflight_should_allow_post() {
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records/batch", port);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setOrigin("http://localhost:3000");
+        headers.setAccessControlRequestMethod(HttpMethod.POST);
+        ResponseEntity<String> response = this.testRestTemplate.exchange(url, HttpMethod.OPTIONS, new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("http://localhost:3000", response.getHeaders().getAccessControlAllowOrigin());
+        assertEquals(List.of(HttpMethod.POST), response.getHeaders().getAccessControlAllowMethods());
+    }
+
+    @Test
+    void test_health_when_unauthenticated_should_not_show_details() {
+        when(dataService.getLastLoadFailure()).thenReturn(new IllegalStateException("https://storage.internal/bucket/data.json"));
+
+        for (String path : List.of("/actuator/health", "/actuator/health/readiness")) {
+            String url = MessageFormat.format("http://localhost:{0,number,#}{1}", port, path);
+            String response = this.testRestTemplate.getForObject(url, String.class);
+
+            assertFalse(response.contains("details") || response.contains("storage.internal"), response);
+        }
+    }
+
+    @Test
+    void test_exportRecords_should_stream_sorted_filtered_records() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        String urlTemplate = "http://localhost:{0,number,#}/api/records/export?status=COMPLETED&status=ERROR&sortBy=id&sortOrder=desc";
+        String url = MessageFormat.format(urlTemplate, port);
+        String actualRecordsResponse = this.testRestTemplate.getForObject(url, String.class);
+        List<Record> records = new ArrayList<>();
+        for (String line : actualRecordsResponse.split("\n")) {
+            records.add(objectMapper.readValue(line, Record.class));
+        }
+
+        assertEquals(List.of(expectedResponse.get(1), expectedResponse.get(0)), records);
+    }
+
+    @Test
+    void test_getRecords_when_etag_matches_should_return_not_modified() {
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records?status=COMPLETED", port);
+        ResponseEntity<String> firstResponse = this.testRestTemplate.getForEntity(url, String.class);
+        String eTag = firstResponse.getHeaders().getETag();
+        assertNotNull(eTag);
+        assertEquals(List.of(eTag), firstResponse.getHeaders().get(HttpHeaders.ETAG));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> secondResponse = this.testRestTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, secondResponse.getStatusCode());
+        assertEquals(eTag, secondResponse.getHeaders().getETag());
+        assertNull(secondResponse.getBody());
+
+        String otherUrl = MessageFormat.format("http://localhost:{0,number,#}/api/records?status=ERROR", port);
+        ResponseEntity<String> otherResponse = this.testRestTemplate.exchange(otherUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.OK, otherResponse.getStatusCode());
+        assertNotEquals(eTag, otherResponse.getHeaders().getETag());
+    }
+
+    @Test
+    void test_getRecords_should_time_request_stages() {
+        String url = MessageFormat.format("http://localhost:{0,number,#}/api/records?name=a&sortBy=name&page=3&pageSize=1", port);
+        this.testRestTemplate.getForObject(url, String.class);
+
+        for (String stage : List.of(RecordMetrics.FILTER_STAGE, RecordMetrics.SORT_STAGE, RecordMetrics.PAGINATE_STAGE, RecordMetrics.SERIALIZE_STAGE)) {
+            Timer timer = meterRegistry.find(RecordMetrics.REQUEST_STAGE_TIMER)
+                    .tags("stage", stage, "sortBy", "name", "filtered", "true", "pageDepth", "2-10")
+                    .timer();
+            assertNotNull(timer, stage);
+            assertNotEquals(0, timer.count(), stage);
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.developer.persistence.mapper;
+
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.entity.PersistenceData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordStreamReaderTest {
+
+    @Test
+    void test_read_should_match_full_bind_of_resource_file() throws IOException {
+        PersistenceData persistenceData;
+        try (InputStream input = getClass().getResourceAsStream("/data/data.json")) {
+            persistenceData = DataObjectMapperBuilder.build().readValue(input, PersistenceData.class);
+        }
+        List<Record> records = new ArrayList<>();
+
+        int count;
+        try (InputStream input = getClass().getResourceAsStream("/data/data.json")) {
+            count = RecordStreamReader.read(input, records::add);
+        }
+
+        assertEquals(persistenceData.getOutput(), records);
+        assertEquals(records.size(), count);
+    }
+
+    @Test
+    void test_read_should_skip_other_fields_and_accept_single_record() throws IOException {
+        String inputRecord = "{\"meta\": {\"output\": [1, 2]}, \"output\": {\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"unknown\": [\"x\"], \"delta\": 6573}, \"total\": 1}";
+        List<Record> records = new ArrayList<>();
+
+        RecordStreamReader.read(new ByteArrayInputStream(inputRecord.getBytes()), records::add);
+
+        assertEquals(List.of(new Record(1389L, "vibrant_hypatia", Instant.ofEpochSecond(1), StatusEnum.COMPLETED, null, 6573L)), records);
+    }
+
+    @Test
+    void test_read_when_not_object_should_fail_IOException() {
+        assertThrows(IOException.class, () -> RecordStreamReader.read(new ByteArrayInputStream("[]".getBytes()), record -> {
+        }));
+    }
+}
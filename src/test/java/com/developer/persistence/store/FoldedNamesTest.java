@@ -0,0 +1,103 @@
+package com.developer.persistence.store;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FoldedNamesTest {
+    private static final Random random = new Random();
+    private static final String ALPHABET = "abcdefgABCDEFG_ ababÿµſKİıkKsSßéÉσΣ𐐀";
+    private static final int DICTIONARY_SIZE = 400;
+
+    private String[] nameDictionary;
+    private FoldedNames foldedNames;
+
+    @BeforeEach
+    public void initVariables() {
+        nameDictionary = new String[DICTIONARY_SIZE];
+        for (int code = 0; code < DICTIONARY_SIZE; code++) {
+            nameDictionary[code] = randomName(random.nextInt(40), random.nextInt(4) == 0);
+        }
+        nameDictionary[0] = "";
+        nameDictionary[1] = "agitated_galileo";
+        foldedNames = FoldedNames.of(nameDictionary);
+    }
+
+    @Test
+    public void test_findCodes_should_match_containsIgnoreCase() {
+        for (int query = 0; query < 1000; query++) {
+            String filterName = query % 2 == 0 ? randomSubstring() : randomName(1 + random.nextInt(6), random.nextInt(4) == 0);
+            FoldedNames.Needle needle = FoldedNames.needle(filterName);
+
+            assertArrayEquals(scanCodes(filterName, 0, DICTIONARY_SIZE), foldedNames.findCodes(needle, 0, DICTIONARY_SIZE), filterName);
+            int fromCode = random.nextInt(DICTIONARY_SIZE);
+            int toCode = fromCode + random.nextInt(DICTIONARY_SIZE - fromCode + 1);
+            assertArrayEquals(scanCodes(filterName, fromCode, toCode), foldedNames.findCodes(needle, fromCode, toCode), filterName);
+            for (int code = 0; code < DICTIONARY_SIZE; code++) {
+                assertEquals(StringUtils.containsIgnoreCase(nameDictionary[code], filterName), foldedNames.contains(code, needle), filterName);
+                assertEquals(StringUtils.containsIgnoreCase(nameDictionary[code], filterName), needle.isContainedIn(nameDictionary[code]), filterName);
+            }
+        }
+    }
+
+    @Test
+    public void test_extend_should_match_names_folded_from_scratch() {
+        String[] extendedDictionary = Arrays.copyOf(nameDictionary, DICTIONARY_SIZE + 50);
+        for (int code = DICTIONARY_SIZE; code < extendedDictionary.length; code++) {
+            extendedDictionary[code] = randomName(random.nextInt(40), random.nextInt(4) == 0);
+        }
+
+        FoldedNames extendedNames = FoldedNames.extend(foldedNames, extendedDictionary);
+        FoldedNames expectedNames = FoldedNames.of(extendedDictionary);
+
+        for (int query = 0; query < 300; query++) {
+            FoldedNames.Needle needle = FoldedNames.needle(randomName(1 + random.nextInt(6), random.nextBoolean()));
+            assertArrayEquals(expectedNames.findCodes(needle, 0, extendedDictionary.length),
+                    extendedNames.findCodes(needle, 0, extendedDictionary.length));
+        }
+    }
+
+    private int[] scanCodes(String filterName, int fromCode, int toCode) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = fromCode; code < toCode; code++) {
+            if (StringUtils.containsIgnoreCase(nameDictionary[code], filterName)) {
+                codes.add(code);
+            }
+        }
+        return codes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private String randomSubstring() {
+        String name = nameDictionary[1 + random.nextInt(DICTIONARY_SIZE - 1)];
+        if (name.length() < 2) {
+            return "ga";
+        }
+        int begin = random.nextInt(name.length() - 1);
+        String value = name.substring(begin, begin + 1 + random.nextInt(name.length() - begin));
+        return random.nextBoolean() ? value.toUpperCase() : value;
+    }
+
+    /**
+     * Builds a name of ASCII letters, with any char of the alphabet when it is not plain
+     */
+    private static String randomName(int length, boolean isPlain) {
+        StringBuilder name = new StringBuilder();
+        int alphabetLength = isPlain ? 20 : ALPHABET.length();
+        while (name.length() < length) {
+            int position = random.nextInt(alphabetLength);
+            if (Character.isLowSurrogate(ALPHABET.charAt(position))) {
+                position--;
+            }
+            name.appendCodePoint(ALPHABET.codePointAt(position));
+        }
+        return name.toString();
+    }
+}
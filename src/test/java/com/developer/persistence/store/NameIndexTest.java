@@ -0,0 +1,123 @@
+package com.developer.persistence.store;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NameIndexTest {
+    private static final Random random = new Random();
+    private static final String ALPHABET = "abcAB_CdéÉßµΜσΣςİıiIKK𐐀𐐨";
+    private static final int DICTIONARY_SIZE = 300;
+
+    private String[] nameDictionary;
+    private NameIndex nameIndex;
+
+    @BeforeEach
+    public void initVariables() {
+        nameDictionary = new String[DICTIONARY_SIZE];
+        for (int code = 0; code < DICTIONARY_SIZE; code++) {
+            nameDictionary[code] = randomName(random.nextInt(12));
+        }
+        nameDictionary[0] = "vibrant_hypatia";
+        nameDictionary[1] = "VIBRANT_HYPATIA_EXTRA";
+        int[] nameCodes = new int[DICTIONARY_SIZE * 2];
+        for (int row = 0; row < nameCodes.length; row++) {
+            nameCodes[row] = row % 7 == 0 ? -1 : random.nextInt(DICTIONARY_SIZE);
+        }
+        nameIndex = NameIndex.build(nameDictionary, nameCodes);
+    }
+
+    @Test
+    public void test_findCodes_when_query_is_substring_should_match_containsIgnoreCase() {
+        for (int query = 0; query < 500; query++) {
+            String name = nameDictionary[random.nextInt(DICTIONARY_SIZE)];
+            if (name.isEmpty()) {
+                continue;
+            }
+            int begin = random.nextInt(name.length());
+            String filterName = randomCase(name.substring(begin, begin + 1 + random.nextInt(name.length() - begin)));
+
+            assertArrayEquals(scanCodes(filterName), nameIndex.findCodes(filterName), filterName);
+        }
+    }
+
+    @Test
+    public void test_findCodes_when_query_is_random_should_match_containsIgnoreCase() {
+        for (int query = 0; query < 500; query++) {
+            String filterName = randomName(1 + random.nextInt(5));
+
+            assertArrayEquals(scanCodes(filterName), nameIndex.findCodes(filterName), filterName);
+        }
+    }
+
+    @Test
+    public void test_findRows_should_return_rows_of_matching_names() {
+        int[] nameCodes = {0, -1, 1, 2, 0, 1};
+        NameIndex index = NameIndex.build(new String[]{"vibrant_hypatia", "agitated_galileo", "VIBRANT_YALOW"}, nameCodes);
+
+        BitSet rows = index.findRows("Vibrant", nameCodes.length);
+
+        assertEquals("{0, 3, 4}", rows.toString());
+    }
+
+    @Test
+    public void test_extend_should_match_index_built_from_scratch() {
+        String[] extendedDictionary = Arrays.copyOf(nameDictionary, DICTIONARY_SIZE + 50);
+        for (int code = DICTIONARY_SIZE; code < extendedDictionary.length; code++) {
+            extendedDictionary[code] = randomName(random.nextInt(12));
+        }
+        int[] nameCodes = new int[extendedDictionary.length];
+        for (int row = 0; row < nameCodes.length; row++) {
+            nameCodes[row] = random.nextInt(extendedDictionary.length);
+        }
+
+        NameIndex extendedIndex = NameIndex.extend(nameIndex, extendedDictionary, nameCodes);
+        NameIndex expectedIndex = NameIndex.build(extendedDictionary, nameCodes);
+
+        for (int query = 0; query < 500; query++) {
+            String filterName = randomName(1 + random.nextInt(5));
+            assertArrayEquals(expectedIndex.findCodes(filterName), extendedIndex.findCodes(filterName), filterName);
+            assertEquals(expectedIndex.findRows(filterName, nameCodes.length), extendedIndex.findRows(filterName, nameCodes.length), filterName);
+        }
+    }
+
+    private int[] scanCodes(String filterName) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < nameDictionary.length; code++) {
+            if (StringUtils.containsIgnoreCase(nameDictionary[code], filterName)) {
+                codes.add(code);
+            }
+        }
+        int[] expectedCodes = codes.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(expectedCodes);
+        return expectedCodes;
+    }
+
+    private static String randomName(int length) {
+        StringBuilder name = new StringBuilder();
+        while (name.length() < length) {
+            int position = random.nextInt(ALPHABET.length());
+            if (Character.isLowSurrogate(ALPHABET.charAt(position))) {
+                position--;
+            }
+            name.appendCodePoint(ALPHABET.codePointAt(position));
+        }
+        return name.toString();
+    }
+
+    private static String randomCase(String value) {
+        StringBuilder result = new StringBuilder();
+        value.codePoints().forEach(codePoint -> result.appendCodePoint(
+                random.nextBoolean() ? Character.toUpperCase(codePoint) : Character.toLowerCase(codePoint)));
+        return result.toString();
+    }
+}
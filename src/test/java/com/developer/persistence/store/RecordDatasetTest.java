@@ -0,0 +1,208 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordDatasetTest {
+    private static final Random random = new Random();
+
+    @Test
+    void test_merge_should_match_dataset_built_from_scratch() {
+        List<Record> records = createRecords(500, 400);
+        RecordDataset dataset = RecordDataset.of(records);
+        List<Record> expectedRecords = new ArrayList<>(records);
+
+        for (int segment = 0; segment < 5; segment++) {
+            List<Record> upserts = createRecords(1 + random.nextInt(60), 600);
+            for (Record upsert : upserts) {
+                int row = indexOfId(expectedRecords, upsert.getId());
+                if (row < 0) {
+                    expectedRecords.add(upsert);
+                } else {
+                    expectedRecords.set(row, upsert);
+                }
+            }
+            dataset = dataset.merge(upserts, List.of("segment-" + segment));
+            RecordDataset expectedDataset = RecordDataset.of(expectedRecords);
+
+            assertEquals(expectedRecords, dataset.getRecords());
+            assertDatasetIndexesEqual(expectedDataset, dataset);
+            assertDatasetIndexesEqual(expectedDataset, dataset.compact());
+        }
+        assertEquals(5, dataset.getMergesSinceCompaction());
+        assertEquals(0, dataset.compact().getMergesSinceCompaction());
+        assertEquals(Set.of("segment-0", "segment-1", "segment-2", "segment-3", "segment-4"), dataset.compact().getAppliedSegments());
+    }
+
+    @Test
+    void test_merge_when_batch_has_same_id_twice_should_keep_last_record() {
+        Record unchanged = createRecord(1L);
+        RecordDataset dataset = RecordDataset.of(List.of(unchanged, createRecord(2L)));
+        Record first = new Record(2L, "first", Instant.ofEpochSecond(5), StatusEnum.ERROR, null, null);
+        Record last = new Record(2L, "last", Instant.ofEpochSecond(6, 7), StatusEnum.COMPLETED, "description", 3L);
+
+        RecordDataset mergedDataset = dataset.merge(List.of(first, last), List.of("segment"));
+
+        assertEquals(List.of(unchanged, last), mergedDataset.getRecords());
+    }
+
+    @Test
+    void test_getSortIndex_when_packed_ranks_exceed_a_long_should_match_sorted_records() {
+        List<Record> records = new ArrayList<>();
+        for (int row = 0; row < 50_000; row++) {
+            records.add(new Record((long) random.nextInt(1 << 16), "Name_" + random.nextInt(1 << 16),
+                    Instant.ofEpochSecond(random.nextInt(1 << 16)), null, null, (long) random.nextInt(1 << 16)));
+        }
+        RecordDataset dataset = RecordDataset.of(records);
+        RecordSort sort = RecordSort.of(List.of(FieldEnum.DELTA, FieldEnum.CREATEDON, FieldEnum.NAME, FieldEnum.ID),
+                List.of(OrderEnum.DESC, OrderEnum.ASC, OrderEnum.DESC, OrderEnum.ASC));
+        List<Record> expectedRecords = new ArrayList<>(records);
+        expectedRecords.sort(Comparator.comparing(Record::getDelta).reversed()
+                .thenComparing(Record::getCreatedOn)
+                .thenComparing(Record::getName, String.CASE_INSENSITIVE_ORDER.reversed())
+                .thenComparing(Record::getId));
+
+        List<Record> sortedRecords = new ArrayList<>();
+        PrimitiveIterator.OfInt rows = dataset.getSortIndex(sort).iterator(sort.getOrder(), 0);
+        while (rows.hasNext()) {
+            sortedRecords.add(dataset.getRecord(rows.nextInt()));
+        }
+
+        assertEquals(expectedRecords, sortedRecords);
+    }
+
+    @Test
+    void test_getSortIndex_when_delta_is_smallest_long_should_sort_null_deltas_first() {
+        List<Record> records = new ArrayList<>();
+        for (Long delta : new Long[]{0L, Long.MIN_VALUE, null, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            records.add(new Record((long) records.size(), null, Instant.EPOCH, null, null, delta));
+        }
+
+        assertArrayEquals(new int[]{2, 1, 4, 0, 3}, sortedRows(RecordDataset.of(records), FieldEnum.DELTA, OrderEnum.ASC));
+    }
+
+    @Test
+    void test_aggregates_should_match_aggregates_of_filtered_records() {
+        RecordDataset dataset = RecordDataset.of(createRecords(2_000, 5_000)).merge(createRecords(200, 6_000), List.of("segment"));
+        List<Set<StatusEnum>> statusFilters = List.of(EnumSet.noneOf(StatusEnum.class), EnumSet.of(StatusEnum.ERROR),
+                EnumSet.of(StatusEnum.COMPLETED, StatusEnum.CANCELED));
+
+        for (String name : new String[]{null, "name_1", "_2", "missing"}) {
+            BitSet nameRows = name == null ? null : dataset.getNameIndex().findRows(name, dataset.size());
+            for (Set<StatusEnum> statuses : statusFilters) {
+                RecordAggregates aggregates = RecordAggregates.of(dataset, nameRows, statuses);
+
+                List<Record> nameRecords = dataset.getRecords().stream()
+                        .filter(record -> name == null || StringUtils.containsIgnoreCase(record.getName(), name))
+                        .toList();
+                List<Long> deltas = nameRecords.stream()
+                        .filter(record -> statuses.isEmpty() || statuses.contains(record.getStatus()))
+                        .map(Record::getDelta).filter(Objects::nonNull).sorted().toList();
+                assertEquals(nameRecords.stream().filter(record -> statuses.isEmpty() || statuses.contains(record.getStatus())).count(),
+                        aggregates.getRecordCount());
+                for (StatusEnum status : StatusEnum.values()) {
+                    assertEquals(nameRecords.stream().filter(record -> record.getStatus() == status).count(), aggregates.getStatusCount(status));
+                }
+                assertEquals(deltas.size(), aggregates.getDeltaCount());
+                assertEquals(deltas.stream().mapToLong(Long::longValue).sum(), aggregates.getDeltaSum());
+                assertEquals(deltas.isEmpty() ? null : deltas.getFirst(), aggregates.getDeltaMin());
+                assertEquals(deltas.isEmpty() ? null : deltas.getLast(), aggregates.getDeltaMax());
+                for (int percentile = 0; percentile < RecordAggregates.PERCENTILES.length; percentile++) {
+                    int rank = (int) Math.ceil(RecordAggregates.PERCENTILES[percentile] * deltas.size() / 100.0);
+                    assertEquals(deltas.isEmpty() ? null : deltas.get(Math.max(rank, 1) - 1), aggregates.getDeltaPercentile(percentile));
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_ranges_should_match_records_in_ranges() {
+        RecordDataset dataset = RecordDataset.of(createRecords(2_000, 5_000)).merge(createRecords(200, 6_000), List.of("segment"));
+
+        for (int query = 0; query < 200; query++) {
+            Instant createdFrom = random.nextInt(3) == 0 ? null : Instant.ofEpochSecond(990 + random.nextInt(70), random.nextInt(4) == 0 ? random.nextInt(1000) : 0);
+            Instant createdTo = random.nextInt(3) == 0 ? null : Instant.ofEpochSecond(990 + random.nextInt(70));
+            Long deltaMin = random.nextInt(3) == 0 ? null : (long) random.nextInt(110) - 5;
+            Long deltaMax = random.nextInt(3) == 0 ? null : (long) random.nextInt(110) - 5;
+            RecordRanges ranges = RecordRanges.of(createdFrom, createdTo, deltaMin, deltaMax);
+
+            BitSet expectedRows = new BitSet();
+            for (int row = 0; row < dataset.size(); row++) {
+                Record record = dataset.getRecord(row);
+                boolean isCreatedInRange = (createdFrom == null || !record.getCreatedOn().isBefore(createdFrom))
+                        && (createdTo == null || record.getCreatedOn().isBefore(createdTo));
+                boolean isDeltaInRange = (deltaMin == null && deltaMax == null) || (record.getDelta() != null
+                        && (deltaMin == null || record.getDelta() >= deltaMin) && (deltaMax == null || record.getDelta() <= deltaMax));
+                expectedRows.set(row, isCreatedInRange && isDeltaInRange);
+            }
+
+            assertEquals(ranges.isEmpty() ? null : expectedRows, ranges.findRows(dataset), ranges.toString());
+        }
+    }
+
+    private static void assertDatasetIndexesEqual(RecordDataset expectedDataset, RecordDataset dataset) {
+        for (FieldEnum field : FieldEnum.values()) {
+            for (OrderEnum order : OrderEnum.values()) {
+                assertArrayEquals(sortedRows(expectedDataset, field, order), sortedRows(dataset, field, order), field + " " + order);
+            }
+        }
+        for (StatusEnum status : StatusEnum.values()) {
+            assertEquals(expectedDataset.getStatusIndex(status), dataset.getStatusIndex(status));
+        }
+        for (String name : new String[]{"name", "NAME_1", "_2", "missing"}) {
+            assertEquals(expectedDataset.getNameIndex().findRows(name, expectedDataset.size()), dataset.getNameIndex().findRows(name, dataset.size()));
+        }
+    }
+
+    private static int[] sortedRows(RecordDataset dataset, FieldEnum field, OrderEnum order) {
+        int[] rows = new int[dataset.size()];
+        PrimitiveIterator.OfInt iterator = dataset.getSortIndex(field).iterator(order, 0);
+        for (int position = 0; iterator.hasNext(); position++) {
+            rows[position] = iterator.nextInt();
+        }
+        return rows;
+    }
+
+    private static int indexOfId(List<Record> records, long id) {
+        for (int row = 0; row < records.size(); row++) {
+            if (records.get(row).getId() == id) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Record> createRecords(int count, int maxId) {
+        List<Record> records = new ArrayList<>();
+        for (int record = 0; record < count; record++) {
+            records.add(createRecord(random.nextInt(maxId)));
+        }
+        return records;
+    }
+
+    private static Record createRecord(long id) {
+        StatusEnum[] statuses = StatusEnum.values();
+        return new Record(id, random.nextInt(10) == 0 ? null : "Name_" + random.nextInt(30),
+                Instant.ofEpochSecond(1_000 + random.nextInt(50), random.nextInt(4) == 0 ? random.nextInt(1000) : 0),
+                random.nextInt(10) == 0 ? null : statuses[random.nextInt(statuses.length)],
+                "description " + random.nextInt(20), random.nextInt(10) == 0 ? null : (long) random.nextInt(100));
+    }
+}
@@ -0,0 +1,110 @@
+package com.developer.persistence.store;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.StatusEnum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_read_should_restore_written_dataset() throws IOException {
+        RecordDataset.Builder builder = RecordDataset.builder().sourceGeneration(42L);
+        createRecords().forEach(builder::add);
+        RecordDataset dataset = builder.build();
+        Path file = directory.resolve("records.snapshot");
+
+        RecordSnapshot.write(dataset, file);
+        RecordDataset restoredDataset = RecordSnapshot.read(file);
+
+        assertTrue(restoredDataset.isRestoredFromSnapshot());
+        assertFalse(dataset.isRestoredFromSnapshot());
+        assertEquals(42L, restoredDataset.getSourceGeneration());
+        assertEquals(dataset.getRecords(), restoredDataset.getRecords());
+        for (FieldEnum field : FieldEnum.values()) {
+            assertArrayEquals(sortedRows(dataset, field), sortedRows(restoredDataset, field));
+        }
+    }
+
+    @Test
+    void test_read_when_no_source_generation_should_restore_null() throws IOException {
+        RecordDataset dataset = RecordDataset.of(List.of(new Record(1L, "vibrant_hypatia", Instant.ofEpochSecond(1), StatusEnum.COMPLETED, null, 1L)));
+        Path file = directory.resolve("records.snapshot");
+
+        RecordSnapshot.write(dataset, file);
+
+        assertNull(RecordSnapshot.read(file).getSourceGeneration());
+    }
+
+    @Test
+    void test_read_when_mapped_in_small_regions_should_restore_written_dataset() throws IOException {
+        RecordDataset dataset = RecordDataset.of(createRecords());
+        Path file = directory.resolve("records.snapshot");
+        RecordSnapshot.write(dataset, file);
+
+        for (int regionBytes : new int[]{8, 13, 100, 4096}) {
+            assertEquals(dataset.getRecords(), RecordSnapshot.read(file, regionBytes).getRecords());
+        }
+    }
+
+    @Test
+    void test_read_when_corrupted_should_fail_IOException() throws IOException {
+        RecordDataset dataset = RecordDataset.of(createRecords());
+        Path file = directory.resolve("records.snapshot");
+        RecordSnapshot.write(dataset, file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> RecordSnapshot.read(file));
+    }
+
+    @Test
+    void test_read_when_truncated_should_fail_IOException() throws IOException {
+        Path file = directory.resolve("records.snapshot");
+        Files.write(file, new byte[]{1, 2, 3});
+
+        assertThrows(IOException.class, () -> RecordSnapshot.read(file));
+    }
+
+    private static List<Record> createRecords() {
+        List<Record> records = new ArrayList<>();
+        StatusEnum[] statuses = StatusEnum.values();
+        for (int row = 0; row < 200; row++) {
+            records.add(new Record((long) (row * 7919 % 200), row % 9 == 0 ? null : "name_" + (row % 13) + "_é",
+                    Instant.ofEpochSecond(1_000_000L + row % 17, row % 5 == 0 ? 0 : row * 1000L),
+                    row % 11 == 0 ? null : statuses[row % statuses.length],
+                    row % 3 == 0 ? null : "description " + (row % 4), row % 7 == 0 ? null : (long) -row));
+        }
+        return records;
+    }
+
+    private static int[] sortedRows(RecordDataset dataset, FieldEnum field) {
+        int[] rows = new int[dataset.size()];
+        PrimitiveIterator.OfInt iterator = dataset.getSortIndex(field).iterator(OrderEnum.DESC, 0);
+        for (int position = 0; iterator.hasNext(); position++) {
+            rows[position] = iterator.nextInt();
+        }
+        return rows;
+    }
+}
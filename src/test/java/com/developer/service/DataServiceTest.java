@@ -4,13 +4,17 @@ import com.developer.controller.model.Record;
 import com.developer.controller.model.StatusEnum;
 import com.developer.exception.DataManagerInternalException;
 import com.developer.persistence.entity.PersistenceData;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordSnapshot;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.Resource;
@@ -18,13 +22,30 @@ import org.springframework.core.io.Resource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.text.MessageFormat;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -78,4 +99,191 @@ class DataServiceTest {
         assertThrows(DataManagerInternalException.class, () -> dataService.getRecords());
     }
 
-}
\ No newline at end of file
+    @Test
+    void test_getDataset_when_concurrent_cold_requests_should_load_once() throws Exception {
+        dataService.isDataFromServer = false;
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"description\": \"Quiquia dolor quaerat dolore etincidunt modi velit.\", \"delta\": 6573}]}";
+        when(resourceFile.getInputStream()).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return new ByteArrayInputStream(inputRecord.getBytes());
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        List<Future<RecordDataset>> results = new ArrayList<>();
+        for (int request = 0; request < 8; request++) {
+            results.add(executorService.submit(() -> dataService.getDataset()));
+        }
+        for (Future<RecordDataset> result : results) {
+            assertSame(results.getFirst().get(), result.get());
+        }
+        executorService.shutdown();
+
+        assertEquals(recordData, results.getFirst().get().getRecords());
+        verify(resourceFile, times(1)).getInputStream();
+    }
+
+    @Test
+    void test_getDataset_when_load_failed_should_retry_on_next_request() throws IOException {
+        dataService.isDataFromServer = false;
+        String inputRecord = "{\"output\": []}";
+        when(resourceFile.getInputStream())
+                .thenThrow(new IOException("Test Exception"))
+                .thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+
+        assertThrows(DataManagerInternalException.class, () -> dataService.getDataset());
+        assertEquals(0, dataService.getDataset().size());
+        verify(resourceFile, times(2)).getInputStream();
+    }
+
+    @Test
+    void test_loadUntilLoaded_when_load_failed_should_retry_until_loaded() throws IOException {
+        dataService.isDataFromServer = false;
+        dataService.eagerLoadRetryDelay = Duration.ofMillis(1);
+        dataService.eagerLoadMaxRetryDelay = Duration.ofMillis(2);
+        String inputRecord = "{\"output\": []}";
+        when(resourceFile.getInputStream())
+                .thenThrow(new IOException("Test Exception"))
+                .thenThrow(new IOException("Test Exception"))
+                .thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+
+        dataService.loadUntilLoaded();
+
+        assertEquals(0, dataService.getLoadedDataset().size());
+        assertNull(dataService.getLastLoadFailure());
+        verify(resourceFile, times(3)).getInputStream();
+    }
+
+    @Test
+    void test_refresh_when_generation_unchanged_should_keep_dataset() {
+        dataService.isDataFromServer = true;
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"description\": \"Quiquia dolor quaerat dolore etincidunt modi velit.\", \"delta\": 6573}]}";
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+            RecordDataset dataset = dataService.getDataset();
+
+            assertFalse(dataService.refresh());
+            assertSame(dataset, dataService.getDataset());
+            assertEquals(7L, dataset.getSourceGeneration());
+            storage.verify(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), any()), times(1));
+        }
+    }
+
+    @Test
+    void test_refresh_when_generation_changed_should_swap_dataset() {
+        dataService.isDataFromServer = true;
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"description\": \"Quiquia dolor quaerat dolore etincidunt modi velit.\", \"delta\": 6573}]}";
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L, 8L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream("{\"output\": []}".getBytes()));
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(8L))).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+            RecordDataset dataset = dataService.getDataset();
+
+            assertTrue(dataService.refresh());
+            RecordDataset refreshedDataset = dataService.getDataset();
+            assertTrue(refreshedDataset.getVersion() > dataset.getVersion());
+            assertEquals(8L, refreshedDataset.getSourceGeneration());
+            assertEquals(recordData, refreshedDataset.getRecords());
+            assertEquals(0, dataset.size());
+        }
+    }
+
+    @Test
+    void test_refresh_when_download_failed_should_keep_dataset() {
+        dataService.isDataFromServer = true;
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L, 8L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream("{\"output\": []}".getBytes()));
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(8L))).thenThrow(new IllegalStateException("Test Exception"));
+            RecordDataset dataset = dataService.getDataset();
+
+            assertThrows(IllegalStateException.class, () -> dataService.refresh());
+            assertSame(dataset, dataService.getDataset());
+        }
+    }
+
+    @Test
+    void test_getDataset_when_snapshot_enabled_should_write_snapshot(@TempDir Path snapshotDirectory) throws IOException {
+        dataService.isDataFromServer = true;
+        dataService.snapshotDirectory = snapshotDirectory.toString();
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"description\": \"Quiquia dolor quaerat dolore etincidunt modi velit.\", \"delta\": 6573}]}";
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+
+            dataService.getDataset();
+        }
+
+        RecordDataset restoredDataset = RecordSnapshot.read(snapshotDirectory.resolve("records.snapshot"));
+        assertEquals(recordData, restoredDataset.getRecords());
+        assertEquals(7L, restoredDataset.getSourceGeneration());
+    }
+
+    @Test
+    void test_getDataset_when_snapshot_restore_fails_should_load_from_source(@TempDir Path snapshotDirectory) throws IOException {
+        dataService.isDataFromServer = true;
+        dataService.snapshotDirectory = snapshotDirectory.toString();
+        Files.write(snapshotDirectory.resolve("records.snapshot"), new byte[]{1});
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"description\": \"Quiquia dolor quaerat dolore etincidunt modi velit.\", \"delta\": 6573}]}";
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class);
+             MockedStatic<RecordSnapshot> snapshot = mockStatic(RecordSnapshot.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+            snapshot.when(() -> RecordSnapshot.read(any())).thenThrow(new IllegalArgumentException("Test Exception"));
+
+            assertEquals(recordData, dataService.getDataset().getRecords());
+        }
+    }
+
+    @Test
+    void test_ingestSegments_when_local_segments_should_merge_new_segments_once(@TempDir Path segmentDirectory) throws IOException {
+        dataService.isDataFromServer = false;
+        dataService.segmentDirectory = segmentDirectory.toString();
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"delta\": 6573}]}";
+        when(resourceFile.getInputStream()).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+        Files.writeString(segmentDirectory.resolve("0001.ndjson"), "{\"id\": 1389, \"status\": \"ERROR\", \"createdOn\": 2000, \"name\": \"vibrant_hypatia\", \"delta\": 1}\n");
+        RecordDataset dataset = dataService.getDataset();
+        Files.writeString(segmentDirectory.resolve("0002.ndjson"), "{\"id\": 7, \"status\": \"COMPLETED\", \"createdOn\": 3000, \"name\": \"agitated_galileo\", \"delta\": 2}\n");
+
+        assertTrue(dataService.ingestSegments());
+        assertFalse(dataService.ingestSegments());
+        RecordDataset mergedDataset = dataService.getDataset();
+        assertEquals(List.of(new Record(1389L, "vibrant_hypatia", Instant.ofEpochSecond(2), StatusEnum.ERROR, null, 1L)), dataset.getRecords());
+        assertEquals(Set.of("0001.ndjson"), dataset.getAppliedSegments());
+        assertEquals(List.of(
+                new Record(1389L, "vibrant_hypatia", Instant.ofEpochSecond(2), StatusEnum.ERROR, null, 1L),
+                new Record(7L, "agitated_galileo", Instant.ofEpochSecond(3), StatusEnum.COMPLETED, null, 2L)), mergedDataset.getRecords());
+        assertEquals(Set.of("0001.ndjson", "0002.ndjson"), mergedDataset.getAppliedSegments());
+    }
+
+    @Test
+    void test_refresh_when_segments_should_apply_local_and_newer_bucket_segments(@TempDir Path segmentDirectory) throws IOException {
+        dataService.isDataFromServer = true;
+        dataService.segmentPrefix = "segments/";
+        dataService.segmentDirectory = segmentDirectory.toString();
+        String inputRecord = "{\"output\": [{\"id\": 1389, \"status\": \"COMPLETED\", \"createdOn\": 1000, \"name\": \"vibrant_hypatia\", \"delta\": 6573}]}";
+        Files.writeString(segmentDirectory.resolve("0003.ndjson"),
+                "{\"id\": 8, \"status\": \"ERROR\", \"createdOn\": 4000, \"name\": \"local_segment\", \"delta\": 3}\n");
+        // A local segment copied with its modification time kept is older than the storage object, it is still merged
+        Files.setLastModifiedTime(segmentDirectory.resolve("0003.ndjson"), FileTime.fromMillis(0));
+        TreeMap<String, Long> bucketSegments = new TreeMap<>(Map.of("segments/0001.ndjson", 5L, "segments/0002.ndjson", 9L));
+        try (MockedStatic<GoogleCloudStorageService> storage = mockStatic(GoogleCloudStorageService.class)) {
+            storage.when(() -> GoogleCloudStorageService.getPublicObjectGeneration(any(), any(), any())).thenReturn(7L);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), any(), eq(7L))).thenReturn(new ByteArrayInputStream(inputRecord.getBytes()));
+            storage.when(() -> GoogleCloudStorageService.listPublicObjectGenerations(any(), any(), eq("segments/"))).thenReturn(bucketSegments);
+            storage.when(() -> GoogleCloudStorageService.openPublicObject(any(), any(), eq("segments/0002.ndjson"), any())).thenReturn(new ByteArrayInputStream(
+                    "{\"id\": 1389, \"status\": \"ERROR\", \"createdOn\": 2000, \"name\": \"vibrant_hypatia\", \"delta\": 1}\n".getBytes()));
+
+            assertTrue(dataService.refresh());
+            assertFalse(dataService.ingestSegments());
+
+            storage.verify(() -> GoogleCloudStorageService.openPublicObject(any(), any(), eq("segments/0001.ndjson"), any()), never());
+        }
+
+        RecordDataset dataset = dataService.getDataset();
+        assertEquals(List.of(
+                new Record(1389L, "vibrant_hypatia", Instant.ofEpochSecond(2), StatusEnum.ERROR, null, 1L),
+                new Record(8L, "local_segment", Instant.ofEpochSecond(4), StatusEnum.ERROR, null, 3L)), dataset.getRecords());
+        assertEquals(Set.of("0003.ndjson", "segments/0001.ndjson", "segments/0002.ndjson"), dataset.getAppliedSegments());
+    }
+}
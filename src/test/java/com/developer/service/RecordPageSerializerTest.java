@@ -0,0 +1,97 @@
+package com.developer.service;
+
+import com.developer.controller.model.DeltaStats;
+import com.developer.controller.model.Record;
+import com.developer.controller.model.RecordPage;
+import com.developer.controller.model.RecordStats;
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordDataset;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordPageSerializerTest {
+    private RecordPageSerializer recordPageSerializer;
+    private ObjectMapper objectMapper;
+    private RecordDataset dataset;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        recordPageSerializer = new RecordPageSerializer();
+        recordPageSerializer.objectMapper = objectMapper;
+        dataset = RecordDataset.of(List.of(
+                new Record(2988L, "agitated_galileo", Instant.ofEpochSecond(1_700_000_000L, 5), StatusEnum.ERROR, "Quisquam \"eius\" quiquia.", 2156L),
+                new Record(1389L, "vibrant_hypatia_é", Instant.ofEpochSecond(1_700_000_001L), null, null, null)));
+    }
+
+    @Test
+    void test_serialize_should_match_serialization_of_record_page() throws IOException {
+        RecordStats facets = new RecordStats(null, new EnumMap<>(Map.of(StatusEnum.ERROR, 1)),
+                new DeltaStats(1, 2156L, 2156L, 2156L, Map.of("p50", 2156L)));
+        RecordPage recordPage = new RecordPage(2, 3, List.of(dataset.getRecord(1), dataset.getRecord(0)), "cursor", facets);
+
+        for (int request = 0; request < 2; request++) {
+            byte[] json = recordPageSerializer.serialize(dataset, 2, 3, new int[]{1, 0}, "cursor", facets);
+
+            assertEquals(objectMapper.writeValueAsString(recordPage), new String(json, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void test_serialize_when_fragments_disabled_and_no_cursor_should_match_serialization_of_record_page() throws IOException {
+        recordPageSerializer.isFragmentCacheEnabled = false;
+        RecordPage recordPage = new RecordPage(1, 1, List.of(dataset.getRecord(0)));
+
+        byte[] json = recordPageSerializer.serialize(dataset, 1, 1, new int[]{0}, null, null);
+
+        assertEquals(objectMapper.writeValueAsString(recordPage), new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void test_serialize_when_rows_share_fragment_slot_should_match_serialization_of_record_page() throws IOException {
+        recordPageSerializer.maxFragmentEntries = 1;
+        RecordPage recordPage = new RecordPage(1, 2, List.of(dataset.getRecord(0), dataset.getRecord(1), dataset.getRecord(0)));
+
+        byte[] json = recordPageSerializer.serialize(dataset, 1, 2, new int[]{0, 1, 0}, null, null);
+
+        assertEquals(objectMapper.writeValueAsString(recordPage), new String(json, StandardCharsets.UTF_8));
+        long fragmentBytes = recordPageSerializer.estimateFragmentHeapBytes(dataset);
+        assertTrue(fragmentBytes > 0 && fragmentBytes < json.length + 100);
+        assertEquals(0, recordPageSerializer.estimateFragmentHeapBytes(RecordDataset.of(dataset.getRecords())));
+    }
+
+    @Test
+    void test_gzip_should_cache_compressed_page_per_dataset_version() throws IOException {
+        byte[] json = recordPageSerializer.serialize(dataset, 1, 2, new int[]{0, 1}, null, null);
+
+        byte[] compressedPage = recordPageSerializer.gzip(dataset, "page", () -> json);
+
+        assertSame(compressedPage, recordPageSerializer.gzip(dataset, "page", () -> json));
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressedPage))) {
+            assertEquals(new String(json, StandardCharsets.UTF_8), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        RecordDataset newerDataset = RecordDataset.of(dataset.getRecords());
+        byte[] newerJson = recordPageSerializer.serialize(newerDataset, 1, 1, new int[]{1}, null, null);
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(recordPageSerializer.gzip(newerDataset, "page", () -> newerJson)))) {
+            assertEquals(new String(newerJson, StandardCharsets.UTF_8), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.developer.service;
 
+import com.developer.controller.model.FieldEnum;
 import com.developer.controller.model.OrderEnum;
 import com.developer.controller.model.Record;
 import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordCursor;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordSort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,7 +21,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 public class RecordProcessingServiceTest {
@@ -34,6 +41,7 @@ public class RecordProcessingServiceTest {
 
     @BeforeEach
     public void initVariables() {
+        recordProcessingService.parallelQueryExecutor = new ParallelQueryExecutor();
         randomRecordsList = createRandomRecordList(RECORDS_FILTER_SORT_SIZE);
     }
 
@@ -214,6 +222,243 @@ public class RecordProcessingServiceTest {
         testRecordsPagination(40, 2, PAGE_SIZE, PAGE_SIZE + 1,  2 * PAGE_SIZE);
     }
 
+    @Test
+    public void test_getSortedRowsPage_when_unfiltered_should_match_sorted_pages() {
+        List<Record> actualRecordData = createRecordListWithTies(45);
+        RecordDataset dataset = RecordDataset.of(actualRecordData);
+
+        for (RecordSort sort : createSorts()) {
+            List<Record> expectedRecordData = new ArrayList<>(actualRecordData);
+            sortWithOrderMethod(expectedRecordData, sort);
+            for (int page = 1; page <= 3; page++) {
+                List<Record> actualRecordsPage = toRecords(dataset, recordProcessingService.getSortedRowsPage(dataset, sort, null, PAGE_SIZE, page));
+
+                assertEquals(recordProcessingService.getRecordsPage(expectedRecordData, PAGE_SIZE, page), actualRecordsPage, sort.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_getSortedRowsPage_when_filtered_should_match_filtered_sorted_pages() {
+        List<Record> actualRecordData = createRecordListWithTies(60);
+        RecordDataset dataset = RecordDataset.of(actualRecordData);
+        BitSet filter = recordProcessingService.statusFilter(dataset, List.of(StatusEnum.COMPLETED, StatusEnum.ERROR));
+
+        for (RecordSort sort : createSorts()) {
+            List<Record> expectedRecordData = actualRecordData.stream()
+                    .filter(record -> record.getStatus() != StatusEnum.CANCELED)
+                    .collect(Collectors.toList());
+            sortWithOrderMethod(expectedRecordData, sort);
+            for (int page = 1; PAGE_SIZE * (page - 1) < expectedRecordData.size(); page++) {
+                List<Record> actualRecordsPage = toRecords(dataset, recordProcessingService.getSortedRowsPage(dataset, sort, filter, PAGE_SIZE, page));
+
+                assertEquals(recordProcessingService.getRecordsPage(expectedRecordData, PAGE_SIZE, page), actualRecordsPage, sort.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_getSortedRowsPage_when_sparse_filter_should_match_filtered_sorted_pages() {
+        List<Record> actualRecordData = createRecordListWithTies(3000);
+        RecordDataset dataset = RecordDataset.of(actualRecordData);
+        BitSet filter = recordProcessingService.nameFilter(dataset, "name_1");
+        filter.and(recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR)));
+
+        for (RecordSort sort : createSorts()) {
+            List<Record> expectedRecordData = recordProcessingService.filterByStatus(
+                    recordProcessingService.filterByName(actualRecordData, "name_1"), StatusEnum.ERROR);
+            sortWithOrderMethod(expectedRecordData, sort);
+            for (int page = 1; PAGE_SIZE * (page - 1) < expectedRecordData.size(); page++) {
+                List<Record> actualRecordsPage = toRecords(dataset, recordProcessingService.getSortedRowsPage(dataset, sort, filter, PAGE_SIZE, page));
+
+                assertEquals(recordProcessingService.getRecordsPage(expectedRecordData, PAGE_SIZE, page), actualRecordsPage, sort.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_getSortedRowsPage_when_page_beyond_int_range_should_return_empty_page() {
+        RecordDataset dataset = RecordDataset.of(createRecordListWithTies(60));
+        BitSet filter = recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR));
+
+        for (RecordSort sort : createSorts()) {
+            assertEquals(0, recordProcessingService.getSortedRowsPage(dataset, sort, null, 100, Integer.MAX_VALUE).length);
+            assertEquals(0, recordProcessingService.getSortedRowsPage(dataset, sort, filter, 100, Integer.MAX_VALUE).length);
+        }
+    }
+
+    @Test
+    public void test_getSortedRowsPageAfter_when_crawling_with_cursor_should_return_every_record_once() {
+        List<Record> actualRecordData = createRecordListWithTies(90);
+        RecordDataset dataset = RecordDataset.of(actualRecordData);
+        BitSet filter = recordProcessingService.statusFilter(dataset, List.of(StatusEnum.COMPLETED, StatusEnum.CANCELED));
+
+        for (RecordSort sort : createSorts()) {
+            List<Record> expectedRecordData = actualRecordData.stream()
+                    .filter(record -> record.getStatus() != StatusEnum.ERROR)
+                    .collect(Collectors.toList());
+            sortWithOrderMethod(expectedRecordData, sort);
+
+            List<Record> crawledRecordData = new ArrayList<>(toRecords(dataset, recordProcessingService.getSortedRowsPage(dataset, sort, filter, 7, 1)));
+            while (crawledRecordData.size() < expectedRecordData.size()) {
+                RecordCursor cursor = RecordCursor.decode(RecordCursor.after(sort, crawledRecordData.getLast()).encode());
+                List<Record> actualRecordsPage = toRecords(dataset, recordProcessingService.getSortedRowsPageAfter(dataset, sort, filter, 7, cursor));
+                assertFalse(actualRecordsPage.isEmpty());
+                crawledRecordData.addAll(actualRecordsPage);
+            }
+
+            assertEquals(expectedRecordData, crawledRecordData, sort.toString());
+        }
+    }
+
+    @Test
+    public void test_getSortedRowsPageAfter_when_cursor_record_removed_should_resume_after_previous_keys() {
+        List<Record> actualRecordData = createRecordListWithTies(40);
+        actualRecordData.sort(Comparator.comparing(Record::getCreatedOn));
+        RecordCursor cursor = RecordCursor.after(RecordSort.by(FieldEnum.CREATEDON, OrderEnum.ASC), actualRecordData.get(19));
+        List<Record> remainingRecordData = new ArrayList<>(actualRecordData);
+        remainingRecordData.remove(19);
+
+        RecordDataset dataset = RecordDataset.of(remainingRecordData);
+        List<Record> actualRecordsPage = toRecords(dataset,
+                recordProcessingService.getSortedRowsPageAfter(dataset, RecordSort.by(FieldEnum.CREATEDON, OrderEnum.ASC), null, 40, cursor));
+
+        for (Record record : actualRecordsPage) {
+            assertFalse(record.getCreatedOn().isBefore(actualRecordData.get(19).getCreatedOn()));
+        }
+        assertTrue(actualRecordsPage.containsAll(actualRecordData.subList(20, 40)));
+    }
+
+    @Test
+    public void test_getSortedRows_should_match_filtered_sorted_records() {
+        List<Record> actualRecordData = createRecordListWithTies(3000);
+        RecordDataset dataset = RecordDataset.of(actualRecordData);
+        BitSet sparseFilter = recordProcessingService.nameFilter(dataset, "name_1");
+        sparseFilter.and(recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR)));
+        BitSet denseFilter = recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR, StatusEnum.CANCELED));
+
+        for (BitSet filter : List.of(sparseFilter, denseFilter)) {
+            for (RecordSort sort : List.of(RecordSort.by(FieldEnum.NAME, OrderEnum.ASC), RecordSort.by(FieldEnum.NAME, OrderEnum.DESC),
+                    RecordSort.of(List.of(FieldEnum.STATUS, FieldEnum.CREATEDON), List.of(OrderEnum.ASC, OrderEnum.DESC)))) {
+                List<Record> expectedRecordData = filter.stream().mapToObj(actualRecordData::get).collect(Collectors.toList());
+                sortWithOrderMethod(expectedRecordData, sort);
+
+                int[] sortedRows = recordProcessingService.getSortedRows(dataset, sort, filter);
+
+                assertEquals(expectedRecordData, Arrays.stream(sortedRows).mapToObj(dataset::getRecord).collect(Collectors.toList()), sort.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_nameFilter_and_statusFilter_should_match_list_filters() {
+        RecordDataset dataset = RecordDataset.of(createRecordListWithTies(60));
+        List<Record> expectedRecordData = recordProcessingService.filterByStatus(
+                recordProcessingService.filterByName(dataset.getRecords(), "name_1"), StatusEnum.ERROR);
+
+        BitSet filter = recordProcessingService.nameFilter(dataset, "name_1");
+        filter.and(recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR)));
+
+        assertEquals(expectedRecordData.size(), filter.cardinality());
+        assertEquals(expectedRecordData, filter.stream().mapToObj(dataset::getRecord).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_parallel_execution_should_match_sequential_results() {
+        RecordProcessingService parallelService = new RecordProcessingService();
+        parallelService.parallelQueryExecutor = new ParallelQueryExecutor();
+        parallelService.parallelQueryExecutor.minRecords = 1;
+        parallelService.parallelQueryExecutor.threads = 4;
+        try {
+            List<Record> actualRecordData = createRecordListWithTies(5000);
+            RecordDataset dataset = RecordDataset.of(actualRecordData);
+            BitSet sparseFilter = recordProcessingService.nameFilter(dataset, "name_1");
+            sparseFilter.and(recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR)));
+            BitSet denseFilter = recordProcessingService.statusFilter(dataset, List.of(StatusEnum.ERROR, StatusEnum.CANCELED));
+
+            assertEquals(recordProcessingService.nameFilter(dataset, "e_"), parallelService.nameFilter(dataset, "e_"));
+            for (BitSet filter : List.of(sparseFilter, denseFilter)) {
+                for (RecordSort sort : createSorts()) {
+                    assertArrayEquals(recordProcessingService.getSortedRows(dataset, sort, filter),
+                            parallelService.getSortedRows(dataset, sort, filter));
+                    assertArrayEquals(recordProcessingService.getSortedRowsPage(dataset, sort, filter, PAGE_SIZE, 40),
+                            parallelService.getSortedRowsPage(dataset, sort, filter, PAGE_SIZE, 40));
+                }
+            }
+
+            assertTrue(parallelService.parallelQueryExecutor.getParallelCount() > 0);
+        } finally {
+            parallelService.parallelQueryExecutor.stop();
+        }
+    }
+
+    private static List<Record> toRecords(RecordDataset dataset, int[] rows) {
+        return Arrays.stream(rows).mapToObj(dataset::getRecord).collect(Collectors.toList());
+    }
+
+    /**
+     * Sorts by a single id, name or created on field with the list methods, and by other fields with a chain of comparators
+     */
+    private void sortWithOrderMethod(List<Record> recordData, RecordSort sort) {
+        if (!sort.isComposite()) {
+            switch (sort.getField()) {
+                case ID -> recordProcessingService.orderById(recordData, sort.getOrder());
+                case NAME -> recordProcessingService.orderByName(recordData, sort.getOrder());
+                case CREATEDON -> recordProcessingService.orderByCreatedOn(recordData, sort.getOrder());
+                default -> recordData.sort(createComparator(sort));
+            }
+            return;
+        }
+        recordData.sort(createComparator(sort));
+    }
+
+    private static Comparator<Record> createComparator(RecordSort sort) {
+        Comparator<Record> comparator = null;
+        for (int position = 0; position < sort.getFields().size(); position++) {
+            Comparator<Record> fieldComparator = switch (sort.getFields().get(position)) {
+                case ID -> Comparator.comparing(Record::getId);
+                case NAME -> Comparator.comparing(Record::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                case CREATEDON -> Comparator.comparing(Record::getCreatedOn);
+                case STATUS -> Comparator.comparing(Record::getStatus, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case DELTA -> Comparator.comparing(Record::getDelta, Comparator.nullsFirst(Comparator.naturalOrder()));
+            };
+            if (sort.getOrders().get(position) == OrderEnum.DESC) {
+                fieldComparator = fieldComparator.reversed();
+            }
+            comparator = comparator == null ? fieldComparator : comparator.thenComparing(fieldComparator);
+        }
+        return comparator;
+    }
+
+    /**
+     * Every field in both orders, and sorts by several fields with every combination of orders of the first two fields
+     */
+    private static List<RecordSort> createSorts() {
+        List<RecordSort> sorts = new ArrayList<>();
+        for (FieldEnum field : FieldEnum.values()) {
+            for (OrderEnum order : OrderEnum.values()) {
+                sorts.add(RecordSort.by(field, order));
+            }
+        }
+        for (OrderEnum firstOrder : OrderEnum.values()) {
+            for (OrderEnum secondOrder : OrderEnum.values()) {
+                sorts.add(RecordSort.of(List.of(FieldEnum.STATUS, FieldEnum.CREATEDON), List.of(firstOrder, secondOrder)));
+                sorts.add(RecordSort.of(List.of(FieldEnum.DELTA, FieldEnum.NAME, FieldEnum.ID), List.of(firstOrder, secondOrder, OrderEnum.DESC)));
+            }
+        }
+        return sorts;
+    }
+
+    private static List<Record> createRecordListWithTies(int size) {
+        List<Record> recordList = createRandomRecordList(size);
+        for (Record record : recordList) {
+            record.setName(random.nextBoolean() ? "Name_" + random.nextInt(5) : "NAME_" + random.nextInt(5));
+            record.setCreatedOn(instant.plus(random.nextInt(6), ChronoUnit.MINUTES));
+            record.setDelta(random.nextInt(8) == 0 ? null : (long) random.nextInt(7) - 3);
+        }
+        return recordList;
+    }
+
     private void testRecordsPagination(int actualRecordsSize, int page, int expectedRecordsSize, int expectedFirstRecordId, int expectedLastRecordId) {
         List<Record> actualRecordData = createRandomRecordList(actualRecordsSize);
         actualRecordData.sort(Comparator.comparing(Record::getId));
@@ -0,0 +1,75 @@
+package com.developer.service;
+
+import com.developer.controller.model.FieldEnum;
+import com.developer.controller.model.OrderEnum;
+import com.developer.controller.model.StatusEnum;
+import com.developer.persistence.store.RecordDataset;
+import com.developer.persistence.store.RecordRanges;
+import com.developer.persistence.store.RecordSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RecordQueryCacheTest {
+    private final RecordDataset dataset = RecordDataset.of(Collections.emptyList());
+    private RecordQueryCache recordQueryCache;
+
+    @BeforeEach
+    public void initVariables() {
+        recordQueryCache = new RecordQueryCache();
+        recordQueryCache.maxEntries = 2;
+        recordQueryCache.maxRows = 10;
+    }
+
+    @Test
+    public void test_get_when_same_normalized_query_should_hit_cache() {
+        int[] rows = {3, 1, 2};
+        recordQueryCache.get(dataset, RecordQueryCache.Key.of("Vibrant", List.of(StatusEnum.ERROR, StatusEnum.COMPLETED), RecordRanges.NONE, RecordSort.by(FieldEnum.NAME, OrderEnum.ASC)), () -> rows);
+
+        int[] cachedRows = recordQueryCache.get(dataset, RecordQueryCache.Key.of("vIBRANT", List.of(StatusEnum.COMPLETED, StatusEnum.ERROR), RecordRanges.NONE, RecordSort.by(FieldEnum.NAME, OrderEnum.ASC)), () -> new int[0]);
+
+        assertSame(rows, cachedRows);
+        assertEquals(1, recordQueryCache.getHitCount());
+        assertEquals(1, recordQueryCache.getMissCount());
+    }
+
+    @Test
+    public void test_get_when_max_entries_exceeded_should_evict_least_recently_used() {
+        RecordQueryCache.Key firstKey = RecordQueryCache.Key.of("first", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC));
+        RecordQueryCache.Key secondKey = RecordQueryCache.Key.of("second", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC));
+        recordQueryCache.get(dataset, firstKey, () -> new int[]{1});
+        recordQueryCache.get(dataset, secondKey, () -> new int[]{2});
+        recordQueryCache.get(dataset, firstKey, () -> new int[0]);
+
+        recordQueryCache.get(dataset, RecordQueryCache.Key.of("third", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC)), () -> new int[]{3});
+
+        assertEquals(2, recordQueryCache.size());
+        assertArrayEquals(new int[]{1}, recordQueryCache.get(dataset, firstKey, () -> new int[0]));
+        assertArrayEquals(new int[0], recordQueryCache.get(dataset, secondKey, () -> new int[0]));
+    }
+
+    @Test
+    public void test_get_when_max_rows_exceeded_should_evict_entries() {
+        recordQueryCache.get(dataset, RecordQueryCache.Key.of("first", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC)), () -> new int[6]);
+        recordQueryCache.get(dataset, RecordQueryCache.Key.of("second", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC)), () -> new int[6]);
+
+        assertEquals(1, recordQueryCache.size());
+    }
+
+    @Test
+    public void test_get_when_new_dataset_version_should_invalidate_entries() {
+        RecordQueryCache.Key key = RecordQueryCache.Key.of("name", null, RecordRanges.NONE, RecordSort.by(FieldEnum.ID, OrderEnum.ASC));
+        recordQueryCache.get(dataset, key, () -> new int[]{1});
+
+        int[] rows = recordQueryCache.get(RecordDataset.of(Collections.emptyList()), key, () -> new int[]{2});
+
+        assertArrayEquals(new int[]{2}, rows);
+        assertEquals(0, recordQueryCache.getHitCount());
+    }
+}